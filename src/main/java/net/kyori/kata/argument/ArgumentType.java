@@ -27,6 +27,7 @@ import net.kyori.kata.context.CommandContext;
 import net.kyori.kata.exception.CommandException;
 import net.kyori.string.StringReader;
 import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
 /**
  * An argument type.
@@ -44,6 +45,43 @@ public interface ArgumentType<T> {
    */
   @NonNull T parse(final @NonNull CommandContext context, final @NonNull StringReader reader) throws CommandException;
 
+  /**
+   * Attempts to parse a value.
+   *
+   * <p>This is used by the dispatcher to try several arguments at the same position: when a value
+   * cannot be parsed, {@code null} is returned and the next argument is tried. The reader is left at
+   * its original position when {@code null} is returned.</p>
+   *
+   * <p>The default implementation catches the exception thrown by {@link #parse(CommandContext, StringReader)};
+   * implementations should override this method to fail without creating an exception.</p>
+   *
+   * @param context the context
+   * @param reader the string reader
+   * @return the value, or {@code null} if a value could not be parsed
+   */
+  default @Nullable T tryParse(final @NonNull CommandContext context, final @NonNull StringReader reader) {
+    final int start = reader.index();
+    try {
+      return this.parse(context, reader);
+    } catch(final CommandException e) {
+      reader.index(start);
+      return null;
+    }
+  }
+
+  /**
+   * Checks if a value of this type can start with {@code character}.
+   *
+   * <p>This is used by the dispatcher to skip arguments which cannot match the next character of the
+   * input without attempting to parse them. The default implementation accepts any character.</p>
+   *
+   * @param character the character
+   * @return {@code true} if a value can start with {@code character}, {@code false} otherwise
+   */
+  default boolean canStartWith(final char character) {
+    return true;
+  }
+
   /**
    * Creates an argument.
    *
@@ -53,4 +91,124 @@ public interface ArgumentType<T> {
   default @NonNull Argument<T> create(final @NonNull String name) {
     return Argument.of(name, this);
   }
+
+  /**
+   * An argument type which parses an {@code int} without boxing it.
+   *
+   * <p>A value always consumes at least one character, so a parse failed when the reader has not moved.</p>
+   */
+  interface OfInt extends ArgumentType<Integer> {
+    /**
+     * Parses a value.
+     *
+     * @param context the context
+     * @param reader the string reader
+     * @return the value
+     * @throws CommandException if an exception is encountered while parsing
+     */
+    int parseInt(final @NonNull CommandContext context, final @NonNull StringReader reader) throws CommandException;
+
+    /**
+     * Attempts to parse a value.
+     *
+     * <p>When a value cannot be parsed, the reader is left at its original position and {@code 0} is returned.</p>
+     *
+     * @param context the context
+     * @param reader the string reader
+     * @return the value
+     */
+    int tryParseInt(final @NonNull CommandContext context, final @NonNull StringReader reader);
+
+    @Override
+    default @NonNull Integer parse(final @NonNull CommandContext context, final @NonNull StringReader reader) throws CommandException {
+      return this.parseInt(context, reader);
+    }
+
+    @Override
+    default @Nullable Integer tryParse(final @NonNull CommandContext context, final @NonNull StringReader reader) {
+      final int start = reader.index();
+      final int value = this.tryParseInt(context, reader);
+      return reader.index() == start ? null : value;
+    }
+  }
+
+  /**
+   * An argument type which parses a {@code long} without boxing it.
+   *
+   * <p>A value always consumes at least one character, so a parse failed when the reader has not moved.</p>
+   */
+  interface OfLong extends ArgumentType<Long> {
+    /**
+     * Parses a value.
+     *
+     * @param context the context
+     * @param reader the string reader
+     * @return the value
+     * @throws CommandException if an exception is encountered while parsing
+     */
+    long parseLong(final @NonNull CommandContext context, final @NonNull StringReader reader) throws CommandException;
+
+    /**
+     * Attempts to parse a value.
+     *
+     * <p>When a value cannot be parsed, the reader is left at its original position and {@code 0} is returned.</p>
+     *
+     * @param context the context
+     * @param reader the string reader
+     * @return the value
+     */
+    long tryParseLong(final @NonNull CommandContext context, final @NonNull StringReader reader);
+
+    @Override
+    default @NonNull Long parse(final @NonNull CommandContext context, final @NonNull StringReader reader) throws CommandException {
+      return this.parseLong(context, reader);
+    }
+
+    @Override
+    default @Nullable Long tryParse(final @NonNull CommandContext context, final @NonNull StringReader reader) {
+      final int start = reader.index();
+      final long value = this.tryParseLong(context, reader);
+      return reader.index() == start ? null : value;
+    }
+  }
+
+  /**
+   * An argument type which parses a {@code double} without boxing it.
+   *
+   * <p>A value always consumes at least one character, so a parse failed when the reader has not moved.</p>
+   */
+  interface OfDouble extends ArgumentType<Double> {
+    /**
+     * Parses a value.
+     *
+     * @param context the context
+     * @param reader the string reader
+     * @return the value
+     * @throws CommandException if an exception is encountered while parsing
+     */
+    double parseDouble(final @NonNull CommandContext context, final @NonNull StringReader reader) throws CommandException;
+
+    /**
+     * Attempts to parse a value.
+     *
+     * <p>When a value cannot be parsed, the reader is left at its original position and {@code 0} is returned.</p>
+     *
+     * @param context the context
+     * @param reader the string reader
+     * @return the value
+     */
+    double tryParseDouble(final @NonNull CommandContext context, final @NonNull StringReader reader);
+
+    @Override
+    default @NonNull Double parse(final @NonNull CommandContext context, final @NonNull StringReader reader) throws CommandException {
+      return this.parseDouble(context, reader);
+    }
+
+    @Override
+    default @Nullable Double tryParse(final @NonNull CommandContext context, final @NonNull StringReader reader) {
+      final int start = reader.index();
+      final double value = this.tryParseDouble(context, reader);
+      return reader.index() == start ? null : value;
+    }
+  }
 }
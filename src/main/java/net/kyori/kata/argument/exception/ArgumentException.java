@@ -34,4 +34,12 @@ public class ArgumentException extends ContextualCommandException {
   public ArgumentException(final StringReaderGetter reader, final String message, final Throwable cause) {
     super(reader, message, cause);
   }
+
+  protected ArgumentException(final StringReaderGetter reader) {
+    super(reader);
+  }
+
+  protected ArgumentException(final StringReaderGetter reader, final Throwable cause) {
+    super(reader, cause);
+  }
 }
@@ -36,4 +36,12 @@ public class ArgumentParseException extends ArgumentException {
   public ArgumentParseException(final StringReaderGetter reader, final String message, final Throwable cause) {
     super(reader, message, cause);
   }
+
+  protected ArgumentParseException(final StringReaderGetter reader) {
+    super(reader);
+  }
+
+  protected ArgumentParseException(final StringReaderGetter reader, final Throwable cause) {
+    super(reader, cause);
+  }
 }
@@ -34,9 +34,21 @@ public class BooleanArgumentException extends ArgumentParseException {
     super(reader, message, cause);
   }
 
+  protected BooleanArgumentException(final StringReaderGetter reader) {
+    super(reader);
+  }
+
   public static class Invalid extends BooleanArgumentException {
+    private final String string;
+
     public Invalid(final StringReaderGetter reader, final String string) {
-      super(reader, "Invalid boolean '" + string + "'");
+      super(reader);
+      this.string = string;
+    }
+
+    @Override
+    public String message() {
+      return "Invalid boolean '" + this.string + "'";
     }
   }
 }
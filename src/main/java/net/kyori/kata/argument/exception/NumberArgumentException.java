@@ -40,31 +40,74 @@ public class NumberArgumentException extends ArgumentParseException {
     this.type = type;
   }
 
+  protected NumberArgumentException(final NumberType<?> type, final StringReaderGetter reader) {
+    super(reader);
+    this.type = type;
+  }
+
+  protected NumberArgumentException(final NumberType<?> type, final StringReaderGetter reader, final Throwable cause) {
+    super(reader, cause);
+    this.type = type;
+  }
+
   public @NonNull NumberType<?> type() {
     return this.type;
   }
 
   public static class Expected extends NumberArgumentException {
     public Expected(final NumberType<?> type, final StringReaderGetter reader) {
-      super(type, reader, "Expected " + type.name());
+      super(type, reader);
+    }
+
+    @Override
+    public String message() {
+      return "Expected " + this.type().name();
     }
   }
 
   public static class Invalid extends NumberArgumentException {
+    private final String string;
+
     public Invalid(final NumberType<?> type, final StringReaderGetter reader, final String string, final Throwable cause) {
-      super(type, reader, "Invalid " + type.name() + " '" + string + "'", cause);
+      super(type, reader, cause);
+      this.string = string;
+    }
+
+    @Override
+    public String message() {
+      return "Invalid " + this.type().name() + " '" + this.string + "'";
     }
   }
 
   public static class TooLow extends NumberArgumentException {
+    private final Number min;
+    private final Number value;
+
     public <N extends Number> TooLow(final NumberType<N> type, final StringReaderGetter reader, final N min, final N value) {
-      super(type, reader, "Found " + type.name() + " with value of " + value + ", expected a value of " + min + " or greater");
+      super(type, reader);
+      this.min = min;
+      this.value = value;
+    }
+
+    @Override
+    public String message() {
+      return "Found " + this.type().name() + " with value of " + this.value + ", expected a value of " + this.min + " or greater";
     }
   }
 
   public static class TooHigh extends NumberArgumentException {
+    private final Number max;
+    private final Number value;
+
     public <N extends Number> TooHigh(final NumberType<N> type, final StringReaderGetter reader, final N max, final N value) {
-      super(type, reader, "Found " + type.name() + " with value of " + value + ", expected a value of " + max + " or less");
+      super(type, reader);
+      this.max = max;
+      this.value = value;
+    }
+
+    @Override
+    public String message() {
+      return "Found " + this.type().name() + " with value of " + this.value + ", expected a value of " + this.max + " or less";
     }
   }
 }
@@ -33,6 +33,10 @@ public abstract class StringArgumentException extends ArgumentParseException {
     super(reader, message);
   }
 
+  protected StringArgumentException(final StringReaderGetter reader) {
+    super(reader);
+  }
+
   /**
    * An exception thrown when an end-of-quote character was expected while parsing a string argument.
    */
@@ -58,12 +62,17 @@ public abstract class StringArgumentException extends ArgumentParseException {
     private final char escape;
 
     public InvalidEscapeSequence(final StringReaderGetter reader, final char escape) {
-      super(reader, "Invalid escape sequence '" + escape + "'");
+      super(reader);
       this.escape = escape;
     }
 
     public char escape() {
       return this.escape;
     }
+
+    @Override
+    public String message() {
+      return "Invalid escape sequence '" + this.escape + "'";
+    }
   }
 }
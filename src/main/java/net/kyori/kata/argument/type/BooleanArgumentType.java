@@ -30,12 +30,15 @@ import net.kyori.kata.context.CommandContext;
 import net.kyori.kata.exception.CommandException;
 import net.kyori.string.StringReader;
 import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
 /**
  * A boolean argument type.
  */
 public final class BooleanArgumentType implements ArgumentType<Boolean> {
   private static final ArgumentType<Boolean> INSTANCE = new BooleanArgumentType();
+  private static final String TRUE = "true";
+  private static final String FALSE = "false";
 
   private BooleanArgumentType() {
   }
@@ -59,20 +62,54 @@ public final class BooleanArgumentType implements ArgumentType<Boolean> {
     return any().create(name);
   }
 
+  @Override
+  public boolean canStartWith(final char character) {
+    return character == 't' || character == 'f';
+  }
+
   @Override
   public @NonNull Boolean parse(final @NonNull CommandContext context, final @NonNull StringReader reader) throws CommandException {
-    final int start = reader.index();
-    while(reader.readable() && !Character.isWhitespace(reader.peek())) {
-      reader.skip();
-    }
-    final String string = reader.string(start, reader.index());
-    if(string.equals("true")) {
-      return true;
-    } else if(string.equals("false")) {
-      return false;
-    } else {
+    final @Nullable Boolean value = this.tryParse(context, reader);
+    if(value == null) {
+      final int start = reader.index();
+      while(reader.readable() && !Character.isWhitespace(reader.peek())) {
+        reader.skip();
+      }
+      final String string = reader.string(start, reader.index());
       reader.index(start);
       throw new BooleanArgumentException.Invalid(reader, string);
     }
+    return value;
+  }
+
+  @Override
+  public @Nullable Boolean tryParse(final @NonNull CommandContext context, final @NonNull StringReader reader) {
+    final int start = reader.index();
+    if(reader.readable()) {
+      final char first = reader.peek();
+      if(first == 't' && matches(reader, TRUE)) {
+        return Boolean.TRUE;
+      } else if(first == 'f' && matches(reader, FALSE)) {
+        return Boolean.FALSE;
+      }
+    }
+    reader.index(start);
+    return null;
+  }
+
+  /**
+   * Checks if the next word in {@code reader} is {@code word}, consuming it if so.
+   *
+   * @param reader the reader
+   * @param word the word
+   * @return {@code true} if the word matched
+   */
+  private static boolean matches(final StringReader reader, final String word) {
+    for(int i = 0, length = word.length(); i < length; i++) {
+      if(!reader.readable() || reader.next() != word.charAt(i)) {
+        return false;
+      }
+    }
+    return !reader.readable() || Character.isWhitespace(reader.peek());
   }
 }
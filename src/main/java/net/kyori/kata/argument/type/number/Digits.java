@@ -0,0 +1,293 @@
+/*
+ * This file is part of kata, licensed under the MIT License.
+ *
+ * Copyright (c) 2018 KyoriPowered
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.kyori.kata.argument.type.number;
+
+import net.kyori.kata.argument.exception.NumberArgumentException;
+import net.kyori.kata.exception.CommandException;
+import net.kyori.kata.util.NumberType;
+import net.kyori.string.StringReader;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+/**
+ * Reads numbers directly from a reader.
+ */
+final class Digits {
+  // the largest integers that doubles and floats can represent exactly
+  private static final long DOUBLE_EXACT = 1L << 53;
+  private static final long FLOAT_EXACT = 1L << 24;
+  // the powers of ten that doubles and floats can represent exactly
+  private static final double[] DOUBLE_POWERS = {
+    1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+    1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+  };
+  private static final float[] FLOAT_POWERS = {
+    1e0f, 1e1f, 1e2f, 1e3f, 1e4f, 1e5f, 1e6f, 1e7f, 1e8f, 1e9f, 1e10f
+  };
+  // the most significant digits which are accumulated
+  private static final int MAX_DIGITS = 19;
+
+  private Digits() {
+  }
+
+  /**
+   * Reads a decimal integer between {@code min} and {@code max}, inclusive.
+   *
+   * <p>The whole number token is consumed. If it is empty, malformed, or out of bounds,
+   * the reader is returned to where it started and {@code 0} is returned.</p>
+   *
+   * @param reader the reader
+   * @param min the minimum value of the number type, which must be negative
+   * @param max the maximum value of the number type, which must be positive
+   * @return the value
+   */
+  static long read(final @NonNull StringReader reader, final long min, final long max) {
+    final int start = reader.index();
+    boolean negative = false;
+    if(reader.readable()) {
+      final char sign = reader.peek();
+      if(sign == '-') {
+        negative = true;
+        reader.skip();
+      } else if(sign == '+') {
+        reader.skip();
+      }
+    }
+    // accumulate negatively so that the most negative value does not overflow
+    final long limit = negative ? min : -max;
+    final long multiplyLimit = limit / 10;
+    boolean valid = true;
+    int digits = 0;
+    long result = 0;
+    while(reader.readable()) {
+      final char character = reader.peek();
+      if(character >= '0' && character <= '9') {
+        final int digit = character - '0';
+        if(valid) {
+          if(result < multiplyLimit) {
+            valid = false;
+          } else {
+            result *= 10;
+            if(result < limit + digit) {
+              valid = false;
+            } else {
+              result -= digit;
+            }
+          }
+        }
+        digits++;
+      } else if(character == '+' || character == '-') {
+        valid = false;
+      } else {
+        break;
+      }
+      reader.skip();
+    }
+    if(!valid || digits == 0) {
+      reader.index(start);
+      return 0;
+    }
+    return negative ? result : -result;
+  }
+
+  /**
+   * Reads a decimal floating point number.
+   *
+   * <p>The whole number token is consumed. If it is empty or malformed, the reader is returned
+   * to where it started and {@code 0} is returned.</p>
+   *
+   * <p>Values whose significand and power of ten are both exactly representable are computed
+   * with a single correctly rounded multiplication or division. Anything else falls back
+   * to {@link Double#parseDouble(String)} or {@link Float#parseFloat(String)}.</p>
+   *
+   * @param reader the reader
+   * @param single {@code true} to round to a {@code float}, {@code false} to round to a {@code double}
+   * @return the value
+   */
+  static double readDecimal(final @NonNull StringReader reader, final boolean single) {
+    final int start = reader.index();
+    boolean negative = false;
+    if(reader.readable()) {
+      final char sign = reader.peek();
+      if(sign == '-') {
+        negative = true;
+        reader.skip();
+      } else if(sign == '+') {
+        reader.skip();
+      }
+    }
+    long significand = 0;
+    int digits = 0;
+    int exponent = 0;
+    boolean any = false;
+    boolean point = false;
+    boolean exact = true;
+    while(reader.readable()) {
+      final char character = reader.peek();
+      if(character >= '0' && character <= '9') {
+        any = true;
+        if(digits < MAX_DIGITS) {
+          // leading zeros are not significant
+          if(significand != 0 || character != '0') {
+            significand = significand * 10 + (character - '0');
+            digits++;
+          }
+          if(point) {
+            exponent--;
+          }
+        } else {
+          if(character != '0') {
+            exact = false;
+          }
+          if(!point) {
+            exponent++;
+          }
+        }
+      } else if(character == '.' && !point) {
+        point = true;
+      } else {
+        break;
+      }
+      reader.skip();
+    }
+    boolean valid = any;
+    if(reader.readable() && (reader.peek() == 'e' || reader.peek() == 'E')) {
+      reader.skip();
+      boolean negativeExponent = false;
+      if(reader.readable()) {
+        final char sign = reader.peek();
+        if(sign == '-') {
+          negativeExponent = true;
+          reader.skip();
+        } else if(sign == '+') {
+          reader.skip();
+        }
+      }
+      int value = 0;
+      boolean exponentDigits = false;
+      while(reader.readable() && reader.peek() >= '0' && reader.peek() <= '9') {
+        if(value < 100_000) {
+          value = value * 10 + (reader.next() - '0');
+        } else {
+          reader.skip();
+        }
+        exponentDigits = true;
+      }
+      valid &= exponentDigits;
+      exponent += negativeExponent ? -value : value;
+    }
+    // anything else in the token makes it malformed
+    while(reader.readable() && NumberType.DOUBLE.allowed(reader.peek())) {
+      valid = false;
+      reader.skip();
+    }
+    if(!valid) {
+      reader.index(start);
+      return 0;
+    }
+    if(exact) {
+      if(significand == 0) {
+        return negative ? -0d : 0d;
+      }
+      final double value = single ? fastFloat(significand, exponent) : fastDouble(significand, exponent);
+      if(!Double.isNaN(value)) {
+        return negative ? -value : value;
+      }
+    }
+    final String string = reader.string(start, reader.index());
+    try {
+      return single ? Float.parseFloat(string) : Double.parseDouble(string);
+    } catch(final NumberFormatException e) {
+      reader.index(start);
+      return 0;
+    }
+  }
+
+  /**
+   * Computes {@code significand * 10^exponent} as a double if it can be done exactly.
+   *
+   * @param significand the significand
+   * @param exponent the decimal exponent
+   * @return the value, or {@link Double#NaN} if it cannot be computed exactly
+   */
+  private static double fastDouble(final long significand, final int exponent) {
+    final int limit = DOUBLE_POWERS.length - 1;
+    long value = significand;
+    int power = exponent;
+    // move surplus powers of ten into the significand while it remains exact
+    while(power > limit && value <= DOUBLE_EXACT / 10) {
+      value *= 10;
+      power--;
+    }
+    if(value > DOUBLE_EXACT || power > limit || power < -limit) {
+      return Double.NaN;
+    }
+    return power < 0 ? value / DOUBLE_POWERS[-power] : value * DOUBLE_POWERS[power];
+  }
+
+  /**
+   * Computes {@code significand * 10^exponent} as a float if it can be done exactly.
+   *
+   * @param significand the significand
+   * @param exponent the decimal exponent
+   * @return the value, or {@link Double#NaN} if it cannot be computed exactly
+   */
+  private static double fastFloat(final long significand, final int exponent) {
+    final int limit = FLOAT_POWERS.length - 1;
+    long value = significand;
+    int power = exponent;
+    while(power > limit && value <= FLOAT_EXACT / 10) {
+      value *= 10;
+      power--;
+    }
+    if(value > FLOAT_EXACT || power > limit || power < -limit) {
+      return Double.NaN;
+    }
+    return power < 0 ? (float) value / FLOAT_POWERS[-power] : (float) value * FLOAT_POWERS[power];
+  }
+
+  /**
+   * Creates the exception describing why the number token at the reader's position could not be read.
+   *
+   * @param type the number type
+   * @param reader the reader
+   * @return the exception
+   */
+  static @NonNull CommandException failure(final @NonNull NumberType<?> type, final @NonNull StringReader reader) {
+    final int start = reader.index();
+    while(reader.readable() && type.allowed(reader.peek())) {
+      reader.skip();
+    }
+    final String string = reader.string(start, reader.index());
+    if(string.isEmpty()) {
+      return new NumberArgumentException.Expected(type, reader);
+    }
+    reader.index(start);
+    try {
+      type.parse(string);
+    } catch(final NumberFormatException e) {
+      return new NumberArgumentException.Invalid(type, reader, string, e);
+    }
+    return new NumberArgumentException.Invalid(type, reader, string, new NumberFormatException("For input string: \"" + string + '"'));
+  }
+}
@@ -25,15 +25,12 @@ package net.kyori.kata.argument.type.number;
 
 import net.kyori.kata.argument.Argument;
 import net.kyori.kata.argument.ArgumentType;
-import net.kyori.kata.util.NumberType;
 import org.checkerframework.checker.nullness.qual.NonNull;
 
 /**
  * A double argument type.
  */
 public final class DoubleArgumentType {
-  private static final ArgumentType<Double> ANY = new NumberArgumentType<>(NumberType.DOUBLE);
-
   private DoubleArgumentType() {
   }
 
@@ -42,8 +39,8 @@ public final class DoubleArgumentType {
    *
    * @return the argument type
    */
-  public static @NonNull ArgumentType<Double> any() {
-    return ANY;
+  public static ArgumentType.@NonNull OfDouble any() {
+    return DoubleNumberArgumentType.ANY;
   }
 
   /**
@@ -62,7 +59,7 @@ public final class DoubleArgumentType {
    * @param min the minimum value
    * @return the argument type
    */
-  public static @NonNull ArgumentType<Double> min(final double min) {
+  public static ArgumentType.@NonNull OfDouble min(final double min) {
     return between(min, Double.MAX_VALUE);
   }
 
@@ -83,7 +80,7 @@ public final class DoubleArgumentType {
    * @param max the maximum value
    * @return the argument type
    */
-  public static @NonNull ArgumentType<Double> max(final double max) {
+  public static ArgumentType.@NonNull OfDouble max(final double max) {
     return between(Double.MIN_VALUE, max);
   }
 
@@ -105,8 +102,8 @@ public final class DoubleArgumentType {
    * @param max the maximum value
    * @return the argument type
    */
-  public static @NonNull ArgumentType<Double> between(final double min, final double max) {
-    return new NumberArgumentType.Range<>(NumberType.DOUBLE, min, max);
+  public static ArgumentType.@NonNull OfDouble between(final double min, final double max) {
+    return new DoubleNumberArgumentType(min, max);
   }
 
   /**
@@ -0,0 +1,79 @@
+/*
+ * This file is part of kata, licensed under the MIT License.
+ *
+ * Copyright (c) 2018 KyoriPowered
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.kyori.kata.argument.type.number;
+
+import net.kyori.kata.argument.ArgumentType;
+import net.kyori.kata.argument.exception.NumberArgumentException;
+import net.kyori.kata.context.CommandContext;
+import net.kyori.kata.exception.CommandException;
+import net.kyori.kata.util.NumberType;
+import net.kyori.string.StringReader;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+/**
+ * A double argument type which does not box parsed values.
+ */
+final class DoubleNumberArgumentType implements ArgumentType.OfDouble {
+  static final DoubleNumberArgumentType ANY = new DoubleNumberArgumentType(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+  private final double min;
+  private final double max;
+
+  DoubleNumberArgumentType(final double min, final double max) {
+    this.min = min;
+    this.max = max;
+  }
+
+  @Override
+  public boolean canStartWith(final char character) {
+    return NumberType.DOUBLE.allowed(character);
+  }
+
+  @Override
+  public double parseDouble(final @NonNull CommandContext context, final @NonNull StringReader reader) throws CommandException {
+    final int start = reader.index();
+    final double value = Digits.readDecimal(reader, false);
+    if(reader.index() == start) {
+      throw Digits.failure(NumberType.DOUBLE, reader);
+    }
+    if(Double.compare(value, this.min) < 0) {
+      reader.index(start);
+      throw new NumberArgumentException.TooLow(NumberType.DOUBLE, reader, this.min, value);
+    } else if(Double.compare(value, this.max) > 0) {
+      reader.index(start);
+      throw new NumberArgumentException.TooHigh(NumberType.DOUBLE, reader, this.max, value);
+    }
+    return value;
+  }
+
+  @Override
+  public double tryParseDouble(final @NonNull CommandContext context, final @NonNull StringReader reader) {
+    final int start = reader.index();
+    final double value = Digits.readDecimal(reader, false);
+    if(Double.compare(value, this.min) >= 0 && Double.compare(value, this.max) <= 0) {
+      return value;
+    }
+    reader.index(start);
+    return 0;
+  }
+}
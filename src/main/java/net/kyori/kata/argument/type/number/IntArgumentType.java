@@ -25,15 +25,12 @@ package net.kyori.kata.argument.type.number;
 
 import net.kyori.kata.argument.Argument;
 import net.kyori.kata.argument.ArgumentType;
-import net.kyori.kata.util.NumberType;
 import org.checkerframework.checker.nullness.qual.NonNull;
 
 /**
  * An integer argument type.
  */
 public final class IntArgumentType {
-  private static final ArgumentType<Integer> ANY = new NumberArgumentType<>(NumberType.INT);
-
   private IntArgumentType() {
   }
 
@@ -42,8 +39,8 @@ public final class IntArgumentType {
    *
    * @return the argument type
    */
-  public static @NonNull ArgumentType<Integer> any() {
-    return ANY;
+  public static ArgumentType.@NonNull OfInt any() {
+    return IntNumberArgumentType.ANY;
   }
 
   /**
@@ -62,7 +59,7 @@ public final class IntArgumentType {
    * @param min the minimum value
    * @return the argument type
    */
-  public static @NonNull ArgumentType<Integer> min(final int min) {
+  public static ArgumentType.@NonNull OfInt min(final int min) {
     return between(min, Integer.MAX_VALUE);
   }
 
@@ -83,7 +80,7 @@ public final class IntArgumentType {
    * @param max the maximum value
    * @return the argument type
    */
-  public static @NonNull ArgumentType<Integer> max(final int max) {
+  public static ArgumentType.@NonNull OfInt max(final int max) {
     return between(Integer.MIN_VALUE, max);
   }
 
@@ -105,8 +102,8 @@ public final class IntArgumentType {
    * @param max the maximum value
    * @return the argument type
    */
-  public static @NonNull ArgumentType<Integer> between(final int min, final int max) {
-    return new NumberArgumentType.Range<>(NumberType.INT, min, max);
+  public static ArgumentType.@NonNull OfInt between(final int min, final int max) {
+    return new IntNumberArgumentType(min, max);
   }
 
   /**
@@ -0,0 +1,79 @@
+/*
+ * This file is part of kata, licensed under the MIT License.
+ *
+ * Copyright (c) 2018 KyoriPowered
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.kyori.kata.argument.type.number;
+
+import net.kyori.kata.argument.ArgumentType;
+import net.kyori.kata.argument.exception.NumberArgumentException;
+import net.kyori.kata.context.CommandContext;
+import net.kyori.kata.exception.CommandException;
+import net.kyori.kata.util.NumberType;
+import net.kyori.string.StringReader;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+/**
+ * An integer argument type which does not box parsed values.
+ */
+final class IntNumberArgumentType implements ArgumentType.OfInt {
+  static final IntNumberArgumentType ANY = new IntNumberArgumentType(Integer.MIN_VALUE, Integer.MAX_VALUE);
+  private final int min;
+  private final int max;
+
+  IntNumberArgumentType(final int min, final int max) {
+    this.min = min;
+    this.max = max;
+  }
+
+  @Override
+  public boolean canStartWith(final char character) {
+    return NumberType.INT.allowed(character);
+  }
+
+  @Override
+  public int parseInt(final @NonNull CommandContext context, final @NonNull StringReader reader) throws CommandException {
+    final int start = reader.index();
+    final int value = (int) Digits.read(reader, Integer.MIN_VALUE, Integer.MAX_VALUE);
+    if(reader.index() == start) {
+      throw Digits.failure(NumberType.INT, reader);
+    }
+    if(value < this.min) {
+      reader.index(start);
+      throw new NumberArgumentException.TooLow(NumberType.INT, reader, this.min, value);
+    } else if(value > this.max) {
+      reader.index(start);
+      throw new NumberArgumentException.TooHigh(NumberType.INT, reader, this.max, value);
+    }
+    return value;
+  }
+
+  @Override
+  public int tryParseInt(final @NonNull CommandContext context, final @NonNull StringReader reader) {
+    final int start = reader.index();
+    final int value = (int) Digits.read(reader, Integer.MIN_VALUE, Integer.MAX_VALUE);
+    if(value >= this.min && value <= this.max) {
+      return value;
+    }
+    reader.index(start);
+    return 0;
+  }
+}
@@ -25,15 +25,12 @@ package net.kyori.kata.argument.type.number;
 
 import net.kyori.kata.argument.Argument;
 import net.kyori.kata.argument.ArgumentType;
-import net.kyori.kata.util.NumberType;
 import org.checkerframework.checker.nullness.qual.NonNull;
 
 /**
  * A long argument type.
  */
 public final class LongArgumentType {
-  private static final ArgumentType<Long> ANY = new NumberArgumentType<>(NumberType.LONG);
-
   private LongArgumentType() {
   }
 
@@ -42,8 +39,8 @@ public final class LongArgumentType {
    *
    * @return the argument type
    */
-  public static @NonNull ArgumentType<Long> any() {
-    return ANY;
+  public static ArgumentType.@NonNull OfLong any() {
+    return LongNumberArgumentType.ANY;
   }
 
   /**
@@ -62,7 +59,7 @@ public final class LongArgumentType {
    * @param min the minimum value
    * @return the argument type
    */
-  public static @NonNull ArgumentType<Long> min(final long min) {
+  public static ArgumentType.@NonNull OfLong min(final long min) {
     return between(min, Long.MAX_VALUE);
   }
 
@@ -83,7 +80,7 @@ public final class LongArgumentType {
    * @param max the maximum value
    * @return the argument type
    */
-  public static @NonNull ArgumentType<Long> max(final long max) {
+  public static ArgumentType.@NonNull OfLong max(final long max) {
     return between(Long.MIN_VALUE, max);
   }
 
@@ -105,8 +102,8 @@ public final class LongArgumentType {
    * @param max the maximum value
    * @return the argument type
    */
-  public static @NonNull ArgumentType<Long> between(final long min, final long max) {
-    return new NumberArgumentType.Range<>(NumberType.LONG, min, max);
+  public static ArgumentType.@NonNull OfLong between(final long min, final long max) {
+    return new LongNumberArgumentType(min, max);
   }
 
   /**
@@ -31,36 +31,126 @@ import net.kyori.kata.util.NumberType;
 import net.kyori.lambda.Comparables;
 import net.kyori.string.StringReader;
 import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
 public class NumberArgumentType<N extends Number & Comparable<N>> implements ArgumentType<N> {
+  private static final int BYTE = 0;
+  private static final int SHORT = 1;
+  private static final int INT = 2;
+  private static final int LONG = 3;
+  private static final int FLOAT = 4;
+  private static final int DOUBLE = 5;
   protected final NumberType<N> type;
+  // integral types are read within these bounds
+  private final int kind;
+  private final long lower;
+  private final long upper;
 
   NumberArgumentType(final @NonNull NumberType<N> type) {
     this.type = type;
+    this.kind = kind(type);
+    switch(this.kind) {
+      case BYTE: this.lower = Byte.MIN_VALUE; this.upper = Byte.MAX_VALUE; break;
+      case SHORT: this.lower = Short.MIN_VALUE; this.upper = Short.MAX_VALUE; break;
+      case INT: this.lower = Integer.MIN_VALUE; this.upper = Integer.MAX_VALUE; break;
+      case LONG: this.lower = Long.MIN_VALUE; this.upper = Long.MAX_VALUE; break;
+      default: this.lower = 0; this.upper = 0; break;
+    }
+  }
+
+  private static int kind(final NumberType<?> type) {
+    if(type == NumberType.BYTE) {
+      return BYTE;
+    } else if(type == NumberType.SHORT) {
+      return SHORT;
+    } else if(type == NumberType.INT) {
+      return INT;
+    } else if(type == NumberType.LONG) {
+      return LONG;
+    } else if(type == NumberType.FLOAT) {
+      return FLOAT;
+    }
+    return DOUBLE;
+  }
+
+  @Override
+  public boolean canStartWith(final char character) {
+    return this.type.allowed(character);
   }
 
   @Override
   public @NonNull N parse(final @NonNull CommandContext context, final @NonNull StringReader reader) throws CommandException {
     final int start = reader.index();
-    while(reader.readable() && this.type.allowed(reader.peek())) {
-      reader.skip();
+    final @Nullable N value = this.read(reader);
+    if(value == null) {
+      throw Digits.failure(this.type, reader);
     }
-    final String string = reader.string(start, reader.index());
-    if(string.isEmpty()) {
-      throw new NumberArgumentException.Expected(this.type, reader);
+    return this.check(reader, value, start);
+  }
+
+  @Override
+  public @Nullable N tryParse(final @NonNull CommandContext context, final @NonNull StringReader reader) {
+    final int start = reader.index();
+    final @Nullable N value = this.read(reader);
+    if(value != null && this.accepts(value)) {
+      return value;
     }
-    return this.parse(reader, string, start);
+    reader.index(start);
+    return null;
   }
 
-  protected @NonNull N parse(final @NonNull StringReader reader, final @NonNull String string, final int start) throws CommandException, NumberFormatException {
-    try {
-      return this.type.parse(string);
-    } catch(final NumberFormatException e) {
-      reader.index(start);
-      throw new NumberArgumentException.Invalid(this.type, reader, string, e);
+  /**
+   * Reads a number, leaving the reader where it started if the number could not be read.
+   *
+   * @param reader the reader
+   * @return the number, or {@code null}
+   */
+  @SuppressWarnings("unchecked")
+  private @Nullable N read(final @NonNull StringReader reader) {
+    final int start = reader.index();
+    if(this.kind == FLOAT || this.kind == DOUBLE) {
+      final double value = Digits.readDecimal(reader, this.kind == FLOAT);
+      if(reader.index() == start) {
+        return null;
+      }
+      return this.kind == FLOAT ? (N) Float.valueOf((float) value) : (N) Double.valueOf(value);
+    } else {
+      final long value = Digits.read(reader, this.lower, this.upper);
+      if(reader.index() == start) {
+        return null;
+      }
+      switch(this.kind) {
+        case BYTE: return (N) Byte.valueOf((byte) value);
+        case SHORT: return (N) Short.valueOf((short) value);
+        case INT: return (N) Integer.valueOf((int) value);
+        default: return (N) Long.valueOf(value);
+      }
     }
   }
 
+  /**
+   * Checks if {@code value} is acceptable.
+   *
+   * @param value the value
+   * @return {@code true} if the value is acceptable
+   */
+  protected boolean accepts(final @NonNull N value) {
+    return true;
+  }
+
+  /**
+   * Checks that {@code value} is acceptable.
+   *
+   * @param reader the reader
+   * @param value the value
+   * @param start the start of the value
+   * @return the value
+   * @throws CommandException if the value is not acceptable
+   */
+  protected @NonNull N check(final @NonNull StringReader reader, final @NonNull N value, final int start) throws CommandException {
+    return value;
+  }
+
   public static class Range<N extends Number & Comparable<N>> extends NumberArgumentType<N> {
     private final N min;
     private final N max;
@@ -72,8 +162,12 @@ public class NumberArgumentType<N extends Number & Comparable<N>> implements Arg
     }
 
     @Override
-    protected @NonNull N parse(final @NonNull StringReader reader, final @NonNull String string, final int start) throws CommandException, NumberFormatException {
-      final N value = super.parse(reader, string, start);
+    protected boolean accepts(final @NonNull N value) {
+      return !Comparables.lessThan(value, this.min) && !Comparables.greaterThan(value, this.max);
+    }
+
+    @Override
+    protected @NonNull N check(final @NonNull StringReader reader, final @NonNull N value, final int start) throws CommandException {
       if(Comparables.lessThan(value, this.min)) {
         reader.index(start);
         throw new NumberArgumentException.TooLow(this.type, reader, this.min, value);
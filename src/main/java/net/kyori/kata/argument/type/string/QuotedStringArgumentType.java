@@ -29,6 +29,7 @@ import net.kyori.kata.context.CommandContext;
 import net.kyori.kata.exception.CommandException;
 import net.kyori.string.StringReader;
 import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
 /**
  * A quoted string argument type.
@@ -41,14 +42,52 @@ final class QuotedStringArgumentType implements ArgumentType<String> {
   private QuotedStringArgumentType() {
   }
 
+  @Override
+  public boolean canStartWith(final char character) {
+    return character == QUOTE;
+  }
+
   @Override
   public @NonNull String parse(final @NonNull CommandContext context, final @NonNull StringReader reader) throws CommandException {
-    if(reader.peek() != QUOTE) {
-      throw new StringArgumentException.ExpectedStartOfQuote(reader);
+    final int start = reader.index();
+    final @Nullable String value = read(reader);
+    if(value == null) {
+      throw failure(reader, start);
+    }
+    return value;
+  }
+
+  @Override
+  public @Nullable String tryParse(final @NonNull CommandContext context, final @NonNull StringReader reader) {
+    final int start = reader.index();
+    final @Nullable String value = read(reader);
+    if(value == null) {
+      reader.index(start);
+    }
+    return value;
+  }
+
+  /**
+   * Reads a quoted string.
+   *
+   * <p>If the string could not be read, the reader is left where reading failed so that
+   * {@link #failure(StringReader, int)} can describe why.</p>
+   *
+   * @param reader the reader
+   * @return the string, or {@code null} if it could not be read
+   */
+  private static @Nullable String read(final @NonNull StringReader reader) {
+    if(!reader.readable() || reader.peek() != QUOTE) {
+      return null;
     }
 
     reader.skip(); // quote
 
+    final @Nullable String simple = simple(reader);
+    if(simple != null) {
+      return simple;
+    }
+
     final StringBuilder result = new StringBuilder();
     boolean escaped = false;
     while(reader.readable()) {
@@ -59,7 +98,7 @@ final class QuotedStringArgumentType implements ArgumentType<String> {
           escaped = false;
         } else {
           reader.index(reader.index() - 1);
-          throw new StringArgumentException.InvalidEscapeSequence(reader, character);
+          return null;
         }
       } else if(character == ESCAPE) {
         escaped = true;
@@ -69,7 +108,42 @@ final class QuotedStringArgumentType implements ArgumentType<String> {
         result.append(character);
       }
     }
+    return null;
+  }
+
+  /**
+   * Creates the exception describing why {@link #read(StringReader)} failed.
+   *
+   * @param reader the reader, where reading failed
+   * @param start the index reading started at
+   * @return the exception
+   */
+  private static @NonNull CommandException failure(final @NonNull StringReader reader, final int start) {
+    if(reader.index() == start) {
+      return new StringArgumentException.ExpectedStartOfQuote(reader);
+    } else if(!reader.readable()) {
+      return new StringArgumentException.ExpectedEndOfQuote(reader);
+    }
+    return new StringArgumentException.InvalidEscapeSequence(reader, reader.peek());
+  }
 
-    throw new StringArgumentException.ExpectedEndOfQuote(reader);
+  /**
+   * Reads the rest of a quoted string if it contains no escapes.
+   *
+   * @param reader the reader, positioned after the opening quote
+   * @return the string, or {@code null} if it contains escapes or is not terminated
+   */
+  private static @Nullable String simple(final @NonNull StringReader reader) {
+    final int start = reader.index();
+    while(reader.readable()) {
+      final char character = reader.next();
+      if(character == QUOTE) {
+        return reader.string(start, reader.index() - 1);
+      } else if(character == ESCAPE) {
+        break;
+      }
+    }
+    reader.index(start);
+    return null;
   }
 }
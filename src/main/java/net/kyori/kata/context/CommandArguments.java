@@ -26,6 +26,7 @@ package net.kyori.kata.context;
 import net.kyori.kata.argument.Argument;
 import net.kyori.lambda.Maybe;
 import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
 public interface CommandArguments {
   /**
@@ -55,4 +56,67 @@ public interface CommandArguments {
    * @return the argument
    */
   <V> @NonNull V get(final @NonNull Argument<V> argument, final @NonNull V defaultValue);
+
+  /**
+   * Gets an argument.
+   *
+   * @param argument the argument key
+   * @param <V> the argument type
+   * @return the argument, or {@code null} if the argument is not present
+   */
+  <V> @Nullable V get(final @NonNull Argument<V> argument);
+
+  /**
+   * Gets an {@code int} argument without boxing it.
+   *
+   * @param argument the argument key
+   * @return the argument
+   * @throws IllegalArgumentException if the argument is not present
+   */
+  int getInt(final @NonNull Argument<Integer> argument);
+
+  /**
+   * Gets an {@code int} argument without boxing it.
+   *
+   * @param argument the argument key
+   * @param defaultValue the value returned if the argument is not present
+   * @return the argument
+   */
+  int getInt(final @NonNull Argument<Integer> argument, final int defaultValue);
+
+  /**
+   * Gets a {@code long} argument without boxing it.
+   *
+   * @param argument the argument key
+   * @return the argument
+   * @throws IllegalArgumentException if the argument is not present
+   */
+  long getLong(final @NonNull Argument<Long> argument);
+
+  /**
+   * Gets a {@code long} argument without boxing it.
+   *
+   * @param argument the argument key
+   * @param defaultValue the value returned if the argument is not present
+   * @return the argument
+   */
+  long getLong(final @NonNull Argument<Long> argument, final long defaultValue);
+
+  /**
+   * Gets a {@code double} argument without boxing it.
+   *
+   * @param argument the argument key
+   * @return the argument
+   * @throws IllegalArgumentException if the argument is not present
+   */
+  double getDouble(final @NonNull Argument<Double> argument);
+
+  /**
+   * Gets a {@code double} argument without boxing it.
+   *
+   * @param argument the argument key
+   * @param defaultValue the value returned if the argument is not present
+   * @return the argument
+   */
+  double getDouble(final @NonNull Argument<Double> argument, final double defaultValue);
 }
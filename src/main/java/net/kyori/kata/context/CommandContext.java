@@ -23,6 +23,7 @@
  */
 package net.kyori.kata.context;
 
+import net.kyori.kata.requirement.Capabilities;
 import net.kyori.lambda.Maybe;
 import net.kyori.lambda.examine.Examinable;
 import net.kyori.lambda.examine.ExaminableProperty;
@@ -95,6 +96,15 @@ public interface CommandContext extends Examinable {
    */
   <T> @NonNull T require(final @NonNull Key<T> key) throws NoSuchElementException;
 
+  /**
+   * Gets the capabilities.
+   *
+   * @return the capabilities, empty unless the context was built with some
+   */
+  default @NonNull Capabilities capabilities() {
+    return Capabilities.empty();
+  }
+
   /**
    * A command context builder.
    */
@@ -109,6 +119,14 @@ public interface CommandContext extends Examinable {
      */
     <T> @NonNull Builder put(final @NonNull Key<T> key, final @NonNull T value);
 
+    /**
+     * Sets the capabilities.
+     *
+     * @param capabilities the capabilities
+     * @return this builder
+     */
+    @NonNull Builder capabilities(final @NonNull Capabilities capabilities);
+
     /**
      * Builds a command context.
      *
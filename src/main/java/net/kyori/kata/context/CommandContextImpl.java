@@ -24,6 +24,7 @@
 package net.kyori.kata.context;
 
 import com.google.common.collect.ImmutableMap;
+import net.kyori.kata.requirement.Capabilities;
 import net.kyori.lambda.Maybe;
 import net.kyori.lambda.examine.ExaminableProperty;
 import org.checkerframework.checker.nullness.qual.NonNull;
@@ -35,11 +36,13 @@ import java.util.NoSuchElementException;
 import java.util.stream.Stream;
 
 final class CommandContextImpl implements CommandContext {
-  static final CommandContext EMPTY = new CommandContextImpl(Collections.emptyMap());
+  static final CommandContext EMPTY = new CommandContextImpl(Collections.emptyMap(), Capabilities.empty());
   private final Map<Key<?>, Object> context;
+  private final Capabilities capabilities;
 
-  private CommandContextImpl(final Map<Key<?>, Object> context) {
+  private CommandContextImpl(final Map<Key<?>, Object> context, final Capabilities capabilities) {
     this.context = context;
+    this.capabilities = capabilities;
   }
 
   @Override
@@ -65,13 +68,22 @@ final class CommandContextImpl implements CommandContext {
     return key.type().cast(value);
   }
 
+  @Override
+  public @NonNull Capabilities capabilities() {
+    return this.capabilities;
+  }
+
   @Override
   public @NonNull Stream<? extends ExaminableProperty> examinableProperties() {
-    return Stream.of(ExaminableProperty.of("context", this.context));
+    return Stream.of(
+      ExaminableProperty.of("context", this.context),
+      ExaminableProperty.of("capabilities", this.capabilities)
+    );
   }
 
   static final class Builder implements CommandContext.Builder {
     private final ImmutableMap.Builder<Key<?>, Object> context = ImmutableMap.builder();
+    private Capabilities capabilities = Capabilities.empty();
 
     Builder() {
     }
@@ -82,9 +94,15 @@ final class CommandContextImpl implements CommandContext {
       return this;
     }
 
+    @Override
+    public @NonNull Builder capabilities(final @NonNull Capabilities capabilities) {
+      this.capabilities = capabilities;
+      return this;
+    }
+
     @Override
     public @NonNull CommandContext build() {
-      return new CommandContextImpl(this.context.build());
+      return new CommandContextImpl(this.context.build(), this.capabilities);
     }
   }
 }
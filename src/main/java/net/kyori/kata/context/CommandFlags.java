@@ -23,6 +23,10 @@
  */
 package net.kyori.kata.context;
 
+import org.checkerframework.checker.nullness.qual.NonNull;
+
 public interface CommandFlags {
   boolean has(final char flag);
+
+  boolean has(final @NonNull String flag);
 }
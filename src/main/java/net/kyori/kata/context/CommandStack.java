@@ -85,6 +85,15 @@ public interface CommandStack {
      */
     @NonNull Builder flag(final @NonNull StringRange range, final char flag);
 
+    /**
+     * Adds a long flag to the stack.
+     *
+     * @param range the range
+     * @param flag the flag, without its leading dashes
+     * @return this builder
+     */
+    @NonNull Builder flag(final @NonNull StringRange range, final @NonNull String flag);
+
     /**
      * Adds an argument to the stack.
      *
@@ -96,6 +105,54 @@ public interface CommandStack {
      */
     <T> @NonNull Builder argument(final @NonNull Argument<T> argument, final @NonNull StringRange range, final @NonNull T value);
 
+    /**
+     * Adds an {@code int} argument to the stack without boxing it.
+     *
+     * @param argument the argument
+     * @param range the range
+     * @param value the value
+     * @return this builder
+     */
+    @NonNull Builder intArgument(final @NonNull Argument<Integer> argument, final @NonNull StringRange range, final int value);
+
+    /**
+     * Adds a {@code long} argument to the stack without boxing it.
+     *
+     * @param argument the argument
+     * @param range the range
+     * @param value the value
+     * @return this builder
+     */
+    @NonNull Builder longArgument(final @NonNull Argument<Long> argument, final @NonNull StringRange range, final long value);
+
+    /**
+     * Adds a {@code double} argument to the stack without boxing it.
+     *
+     * @param argument the argument
+     * @param range the range
+     * @param value the value
+     * @return this builder
+     */
+    @NonNull Builder doubleArgument(final @NonNull Argument<Double> argument, final @NonNull StringRange range, final double value);
+
+    /**
+     * Creates a checkpoint that this builder can later be {@link #rollback(int) rolled back} to.
+     *
+     * <p>Literals, flags, and arguments are kept in an append-only log, so a checkpoint is simply
+     * the current length of that log.</p>
+     *
+     * @return the checkpoint
+     */
+    int checkpoint();
+
+    /**
+     * Rolls this builder back to {@code checkpoint}, discarding any literals, flags, and arguments added since.
+     *
+     * @param checkpoint the checkpoint
+     * @return this builder
+     */
+    @NonNull Builder rollback(final int checkpoint);
+
     /**
      * Creates a copy.
      *
@@ -103,6 +160,14 @@ public interface CommandStack {
      */
     @NonNull Builder copy();
 
+    /**
+     * Creates a copy which builds a command stack for {@code context}.
+     *
+     * @param context the context
+     * @return the copy
+     */
+    @NonNull Builder copy(final @NonNull CommandContext context);
+
     /**
      * Creates a command stack.
      *
@@ -23,17 +23,16 @@
  */
 package net.kyori.kata.context;
 
-import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import net.kyori.kata.argument.Argument;
 import net.kyori.lambda.Maybe;
 import net.kyori.string.StringRange;
 import net.kyori.string.StringReader;
 import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.HashSet;
-import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 
@@ -63,19 +62,41 @@ final class CommandStackImpl implements CommandStack {
     return this.flags;
   }
 
+  /**
+   * Parsed arguments, stored in slots in the order they were parsed.
+   *
+   * <p>A command has few arguments, so an argument is found by scanning its slots - first by identity,
+   * since arguments are usually looked up with the same instance that was registered, then by equality.
+   * Later slots take precedence over earlier ones.</p>
+   */
   static class CommandArgumentsImpl implements CommandArguments {
-    private final Map<Argument<?>, ParsedArgument<?>> arguments;
+    static final ParsedArgument<?>[] EMPTY = new ParsedArgument<?>[0];
+    private final ParsedArgument<?>[] arguments;
 
-    CommandArgumentsImpl(final Map<Argument<?>, ParsedArgument<?>> arguments) {
+    CommandArgumentsImpl(final ParsedArgument<?>[] arguments) {
       this.arguments = arguments;
     }
 
+    private @Nullable ParsedArgument<?> slot(final Argument<?> key) {
+      for(int i = this.arguments.length - 1; i >= 0; i--) {
+        if(this.arguments[i].argument == key) {
+          return this.arguments[i];
+        }
+      }
+      for(int i = this.arguments.length - 1; i >= 0; i--) {
+        if(this.arguments[i].argument.equals(key)) {
+          return this.arguments[i];
+        }
+      }
+      return null;
+    }
+
     @Override
     @SuppressWarnings("unchecked")
     public @NonNull <V> Maybe<V> find(final @NonNull Argument<V> key) {
-      final ParsedArgument<?> argument = this.arguments.get(key);
+      final ParsedArgument<?> argument = this.slot(key);
       if(argument != null) {
-        return Maybe.just((V) argument.result);
+        return Maybe.just((V) argument.result());
       }
       return Maybe.nothing();
     }
@@ -83,9 +104,9 @@ final class CommandStackImpl implements CommandStack {
     @Override
     @SuppressWarnings("unchecked")
     public <V> @NonNull V require(final @NonNull Argument<V> key) {
-      final ParsedArgument<?> argument = this.arguments.get(key);
+      final ParsedArgument<?> argument = this.slot(key);
       if(argument != null) {
-        return (V) argument.result;
+        return (V) argument.result();
       }
       throw new IllegalArgumentException("No such argument '" + key + "' exists on this command");
     }
@@ -93,88 +114,298 @@ final class CommandStackImpl implements CommandStack {
     @Override
     @SuppressWarnings("unchecked")
     public <V> @NonNull V get(final @NonNull Argument<V> key, @NonNull final V defaultValue) {
-      final ParsedArgument<?> argument = this.arguments.get(key);
+      final ParsedArgument<?> argument = this.slot(key);
       if(argument != null) {
-        return (V) argument.result;
+        return (V) argument.result();
       }
       return defaultValue;
     }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <V> @Nullable V get(final @NonNull Argument<V> key) {
+      final ParsedArgument<?> argument = this.slot(key);
+      if(argument != null) {
+        return (V) argument.result();
+      }
+      return null;
+    }
+
+    private ParsedArgument<?> required(final Argument<?> key) {
+      final ParsedArgument<?> argument = this.slot(key);
+      if(argument == null) {
+        throw new IllegalArgumentException("No such argument '" + key + "' exists on this command");
+      }
+      return argument;
+    }
+
+    @Override
+    public int getInt(final @NonNull Argument<Integer> key) {
+      return (int) this.required(key).longValue();
+    }
+
+    @Override
+    public int getInt(final @NonNull Argument<Integer> key, final int defaultValue) {
+      final ParsedArgument<?> argument = this.slot(key);
+      return argument != null ? (int) argument.longValue() : defaultValue;
+    }
+
+    @Override
+    public long getLong(final @NonNull Argument<Long> key) {
+      return this.required(key).longValue();
+    }
+
+    @Override
+    public long getLong(final @NonNull Argument<Long> key, final long defaultValue) {
+      final ParsedArgument<?> argument = this.slot(key);
+      return argument != null ? argument.longValue() : defaultValue;
+    }
+
+    @Override
+    public double getDouble(final @NonNull Argument<Double> key) {
+      return this.required(key).doubleValue();
+    }
+
+    @Override
+    public double getDouble(final @NonNull Argument<Double> key, final double defaultValue) {
+      final ParsedArgument<?> argument = this.slot(key);
+      return argument != null ? argument.doubleValue() : defaultValue;
+    }
   }
 
   static class CommandFlagsImpl implements CommandFlags {
-    private final Set<Character> flags;
+    static final CommandFlagsImpl EMPTY = new CommandFlagsImpl(0, 0, ImmutableSet.of(), ImmutableSet.of());
+    // short flags below 128 are stored as bits, and any others in a set
+    private final long low;
+    private final long high;
+    private final Set<Character> other;
+    private final Set<String> names;
 
-    CommandFlagsImpl(final Set<Character> flags) {
-      this.flags = flags;
+    CommandFlagsImpl(final long low, final long high, final Set<Character> other, final Set<String> names) {
+      this.low = low;
+      this.high = high;
+      this.other = other;
+      this.names = names;
     }
 
     @Override
     public boolean has(final char flag) {
-      return this.flags.contains(flag);
+      if(flag < 64) {
+        return (this.low & 1L << flag) != 0;
+      } else if(flag < 128) {
+        return (this.high & 1L << (flag - 64)) != 0;
+      }
+      return this.other.contains(flag);
+    }
+
+    @Override
+    public boolean has(final @NonNull String flag) {
+      return this.names.contains(flag);
     }
   }
 
   static final class Builder implements CommandStack.Builder {
-    final Map<Argument<?>, ParsedArgument<?>> arguments = new HashMap<>();
-    final Set<Character> flags = new HashSet<>();
+    // a log of literal ranges, short (Character) and long (String) flags, and parsed arguments, in the order they were added
+    private Object[] log;
+    private int size;
     final CommandContext context;
-    StringRange literalRange;
+    final StringRange start;
 
     Builder(final @NonNull StringReader reader, final @NonNull CommandContext context) {
-      this.context = context;
-      this.literalRange = StringRange.between(reader.index(), reader.index());
+      this(context, StringRange.between(reader.index(), reader.index()), new Object[8], 0);
     }
 
-    Builder(final @NonNull CommandContext context) {
+    private Builder(final @NonNull CommandContext context, final @NonNull StringRange start, final Object[] log, final int size) {
       this.context = context;
+      this.start = start;
+      this.log = log;
+      this.size = size;
     }
 
     @Override
     public @NonNull StringRange literalRange() {
-      return this.literalRange;
+      StringRange range = this.start;
+      for(int i = 0; i < this.size; i++) {
+        if(this.log[i] instanceof StringRange) {
+          range = range.expand((StringRange) this.log[i]);
+        }
+      }
+      return range;
     }
 
     @Override
     public @NonNull Builder literal(final @NonNull StringRange range) {
-      this.literalRange = this.literalRange.expand(range);
-      return this;
+      return this.append(range);
     }
 
     @Override
     public @NonNull Builder flag(final @NonNull StringRange range, final char flag) {
-      this.flags.add(flag);
-      return this;
+      return this.append(flag);
+    }
+
+    @Override
+    public @NonNull Builder flag(final @NonNull StringRange range, final @NonNull String flag) {
+      return this.append(flag);
     }
 
     @Override
     public <T> @NonNull Builder argument(final @NonNull Argument<T> argument, final @NonNull StringRange range, final @NonNull T value) {
-      this.arguments.put(argument, new ParsedArgument<>(range, value));
+      return this.append(new ParsedArgument<>(argument, range, value));
+    }
+
+    @Override
+    public @NonNull Builder intArgument(final @NonNull Argument<Integer> argument, final @NonNull StringRange range, final int value) {
+      return this.append(new ParsedArgument<>(argument, range, ParsedArgument.INT, value));
+    }
+
+    @Override
+    public @NonNull Builder longArgument(final @NonNull Argument<Long> argument, final @NonNull StringRange range, final long value) {
+      return this.append(new ParsedArgument<>(argument, range, ParsedArgument.LONG, value));
+    }
+
+    @Override
+    public @NonNull Builder doubleArgument(final @NonNull Argument<Double> argument, final @NonNull StringRange range, final double value) {
+      return this.append(new ParsedArgument<>(argument, range, ParsedArgument.DOUBLE, Double.doubleToRawLongBits(value)));
+    }
+
+    private @NonNull Builder append(final @NonNull Object entry) {
+      if(this.size == this.log.length) {
+        this.log = Arrays.copyOf(this.log, this.size * 2);
+      }
+      this.log[this.size++] = entry;
+      return this;
+    }
+
+    @Override
+    public int checkpoint() {
+      return this.size;
+    }
+
+    @Override
+    public @NonNull Builder rollback(final int checkpoint) {
+      if(checkpoint < 0 || checkpoint > this.size) {
+        throw new IllegalArgumentException("Invalid checkpoint " + checkpoint + ", expected between 0 and " + this.size);
+      }
+      Arrays.fill(this.log, checkpoint, this.size, null);
+      this.size = checkpoint;
       return this;
     }
 
     @Override
     public @NonNull Builder copy() {
-      final Builder that = new Builder(this.context);
-      that.arguments.putAll(this.arguments);
-      that.literalRange = this.literalRange;
-      return that;
+      return this.copy(this.context);
+    }
+
+    @Override
+    public @NonNull Builder copy(final @NonNull CommandContext context) {
+      return new Builder(context, this.start, Arrays.copyOf(this.log, Math.max(this.size, 1)), this.size);
     }
 
     @Override
     public @NonNull CommandStack build() {
-      return new CommandStackImpl(this.context, new CommandArgumentsImpl(ImmutableMap.copyOf(this.arguments)), new CommandFlagsImpl(ImmutableSet.copyOf(this.flags)));
+      int count = 0;
+      for(int i = 0; i < this.size; i++) {
+        if(this.log[i] instanceof ParsedArgument<?>) {
+          count++;
+        }
+      }
+      final ParsedArgument<?>[] arguments = count == 0 ? CommandArgumentsImpl.EMPTY : new ParsedArgument<?>[count];
+      long low = 0;
+      long high = 0;
+      @Nullable Set<Character> other = null;
+      @Nullable Set<String> names = null;
+      for(int i = 0, slot = 0; i < this.size; i++) {
+        final Object entry = this.log[i];
+        if(entry instanceof ParsedArgument<?>) {
+          arguments[slot++] = (ParsedArgument<?>) entry;
+        } else if(entry instanceof Character) {
+          final char flag = (Character) entry;
+          if(flag < 64) {
+            low |= 1L << flag;
+          } else if(flag < 128) {
+            high |= 1L << (flag - 64);
+          } else {
+            if(other == null) {
+              other = new HashSet<>();
+            }
+            other.add(flag);
+          }
+        } else if(entry instanceof String) {
+          if(names == null) {
+            names = new HashSet<>();
+          }
+          names.add((String) entry);
+        }
+      }
+      final CommandFlagsImpl flags;
+      if(low == 0 && high == 0 && other == null && names == null) {
+        flags = CommandFlagsImpl.EMPTY;
+      } else {
+        flags = new CommandFlagsImpl(low, high, other == null ? ImmutableSet.of() : ImmutableSet.copyOf(other), names == null ? ImmutableSet.of() : ImmutableSet.copyOf(names));
+      }
+      return new CommandStackImpl(this.context, new CommandArgumentsImpl(arguments), flags);
     }
   }
 
+  /**
+   * A parsed argument.
+   *
+   * <p>Primitive values are stored unboxed, and only boxed if requested as an object.</p>
+   */
   static class ParsedArgument<T> {
+    static final int OBJECT = 0;
+    static final int INT = 1;
+    static final int LONG = 2;
+    static final int DOUBLE = 3;
+    private final Argument<T> argument;
     private final StringRange range;
-    private final T result;
+    private final int kind;
+    private final long bits;
+    private @Nullable T result;
 
-    ParsedArgument(final StringRange range, final T result) {
+    ParsedArgument(final Argument<T> argument, final StringRange range, final T result) {
+      this.argument = argument;
       this.range = range;
+      this.kind = OBJECT;
+      this.bits = 0;
       this.result = result;
     }
 
+    ParsedArgument(final Argument<T> argument, final StringRange range, final int kind, final long bits) {
+      this.argument = argument;
+      this.range = range;
+      this.kind = kind;
+      this.bits = bits;
+    }
+
+    @SuppressWarnings("unchecked")
+    T result() {
+      @Nullable T result = this.result;
+      if(result == null) {
+        switch(this.kind) {
+          case INT: result = (T) Integer.valueOf((int) this.bits); break;
+          case LONG: result = (T) Long.valueOf(this.bits); break;
+          default: result = (T) Double.valueOf(Double.longBitsToDouble(this.bits)); break;
+        }
+        this.result = result;
+      }
+      return result;
+    }
+
+    long longValue() {
+      if(this.kind == INT || this.kind == LONG) {
+        return this.bits;
+      }
+      return ((Number) this.result()).longValue();
+    }
+
+    double doubleValue() {
+      if(this.kind == DOUBLE) {
+        return Double.longBitsToDouble(this.bits);
+      }
+      return ((Number) this.result()).doubleValue();
+    }
+
     @Override
     public boolean equals(final Object o) {
       if(this == o) {
@@ -184,12 +415,12 @@ final class CommandStackImpl implements CommandStack {
         return false;
       }
       final ParsedArgument<?> that = (ParsedArgument<?>) o;
-      return Objects.equals(this.range, that.range) && Objects.equals(this.result, that.result);
+      return Objects.equals(this.argument, that.argument) && Objects.equals(this.range, that.range) && Objects.equals(this.result(), that.result());
     }
 
     @Override
     public int hashCode() {
-      return Objects.hash(this.range, this.result);
+      return Objects.hash(this.argument, this.range, this.result());
     }
   }
 }
@@ -0,0 +1,1030 @@
+/*
+ * This file is part of kata, licensed under the MIT License.
+ *
+ * Copyright (c) 2018 KyoriPowered
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.kyori.kata.dispatcher;
+
+import com.google.common.primitives.Ints;
+import net.kyori.kata.node.ArgumentNode;
+import net.kyori.kata.node.ChildNode;
+import net.kyori.kata.node.ExecutableNode;
+import net.kyori.kata.node.FlagNode;
+import net.kyori.kata.node.LiteralNode;
+import net.kyori.kata.node.Node;
+import net.kyori.kata.node.RootNode;
+import net.kyori.kata.requirement.Capabilities;
+import net.kyori.kata.requirement.Requirement;
+import net.kyori.kata.util.LiteralTable;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * An immutable, flattened representation of a node tree.
+ *
+ * <p>Every node is assigned an index. The {@link #ROOT root} is always at index {@code 0}.
+ * The literal children of a node are found through a precomputed {@link LiteralTable}, the flag children
+ * through a precomputed {@link FlagTable}, and the remaining (argument) children are stored as an array of indices
+ * relative to the {@link #offset(int) offset} of the node.</p>
+ *
+ * <p>For each node whose candidates {@link ChildNode#canStartWith(char) declare} which characters they can
+ * start with, a lookahead table of candidates is precomputed for every ASCII character, so that
+ * candidates which cannot match the next character are skipped without being parsed.</p>
+ *
+ * <p>Nodes whose requirement is a {@link Requirement} have the capabilities it requires precomputed, so they
+ * can be checked against a context without calling the requirement.</p>
+ *
+ * <p>The tree is compiled in segments, one per child of the root. A segment holds the tables of its nodes
+ * with indices local to the segment, and occupies a run of pages; the index of a node is the base of its
+ * segment plus its local index. A redirect to a child of the root is resolved through the root's tables, and
+ * any other redirect target is compiled into the segment which redirects to it.</p>
+ *
+ * <p>The literal children of the root are held in buckets of about the square root of their number, each with
+ * its own literal table. {@link #update(RootNode, Collection, int) Updating} a tree compiles the named children of
+ * the root, and reuses every other segment with its tables and pages: it costs the changed segments, the buckets
+ * they belong to, and the chunks of the page table they touch.</p>
+ */
+final class CompiledTree {
+  static final int ROOT = 0;
+  static final int NONE = -1;
+  /**
+   * The redirect target returned when the target is no longer a child of the root, and
+   * the segment of the node which redirects to it must be {@link #repair(RootNode, int) repaired}.
+   */
+  static final int STALE = -2;
+  /**
+   * The number of characters covered by a lookahead table.
+   */
+  static final int LOOKAHEAD = 128;
+  private static final int[] EMPTY = new int[0];
+  // a redirect to the top of another segment, resolved when read
+  private static final int EXTERNAL = -3;
+  private static final int PAGE_BITS = 5;
+  private static final int CHUNK_BITS = 6;
+  private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+  private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+  private final RootNode root;
+  private final int rootModifications;
+  // the segments of the literal children of the root, in buckets by the hash of their name
+  private final Bucket[] buckets;
+  private final int literals;
+  // the segments of the other children of the root, in order
+  private final Segment[] others;
+  private final FlagTable rootFlags;
+  private final int[] rootCandidates;
+  private final int[] @Nullable [] rootLookahead;
+  private final int[] @Nullable [] rootRejected;
+  // the segment of each page, in chunks which are shared between trees until they change
+  private final Segment[][] pages;
+  private final int pageCount;
+  private final int livePages;
+
+  private CompiledTree(final RootNode root, final int rootModifications, final Bucket[] buckets, final int literals, final Segment[] others, final FlagTable rootFlags, final int[] rootCandidates, final int[] @Nullable [] rootLookahead, final int[] @Nullable [] rootRejected, final Pages pages) {
+    this(root, rootModifications, buckets, literals, others, rootFlags, rootCandidates, rootLookahead, rootRejected, pages.chunks, pages.count, pages.live);
+  }
+
+  private CompiledTree(final RootNode root, final int rootModifications, final Bucket[] buckets, final int literals, final Segment[] others, final FlagTable rootFlags, final int[] rootCandidates, final int[] @Nullable [] rootLookahead, final int[] @Nullable [] rootRejected, final Segment[][] pages, final int pageCount, final int livePages) {
+    this.root = root;
+    this.rootModifications = rootModifications;
+    this.buckets = buckets;
+    this.literals = literals;
+    this.others = others;
+    this.rootFlags = rootFlags;
+    this.rootCandidates = rootCandidates;
+    this.rootLookahead = rootLookahead;
+    this.rootRejected = rootRejected;
+    this.pages = pages;
+    this.pageCount = pageCount;
+    this.livePages = livePages;
+  }
+
+  /**
+   * Compiles a tree, reusing the segments of {@code previous} whose nodes have not been modified.
+   *
+   * <p>Every node of {@code previous} is checked for modifications.</p>
+   *
+   * @param root the root node
+   * @param previous the previously compiled tree
+   * @return the compiled tree
+   */
+  static @NonNull CompiledTree compile(final @NonNull RootNode root, final @Nullable CompiledTree previous) {
+    // the modification count is read before the children, so a concurrent modification can only make the tree stale
+    final int rootModifications = root.modifications();
+    final List<ChildNode> children = new ArrayList<>(root.children());
+    final Set<Node> tops = Collections.newSetFromMap(new IdentityHashMap<>());
+    tops.addAll(children);
+
+    final Builder builder = new Builder(previous, false);
+    final Segment[] segments = new Segment[children.size()];
+    final Set<Segment> reused = Collections.newSetFromMap(new IdentityHashMap<>());
+    for(int i = 0; i < segments.length; i++) {
+      final @Nullable Segment segment = previous != null ? previous.segment(children.get(i)) : null;
+      if(segment != null && segment.valid(tops::contains)) {
+        segments[i] = segment;
+        reused.add(segment);
+      }
+    }
+    if(previous != null) {
+      for(final Segment segment : previous.segments()) {
+        if(!reused.contains(segment)) {
+          builder.pages.free(segment);
+        }
+      }
+    }
+    for(int i = 0; i < segments.length; i++) {
+      builder.put(segments[i] != null ? segments[i] : builder.pages.place(Segment.compile(children.get(i), tops::contains)));
+    }
+    return builder.build(root, rootModifications);
+  }
+
+  /**
+   * Compiles the children of the root with the given names, reusing every other segment of this tree.
+   *
+   * @param root the root node
+   * @param names the names of the children which may have changed
+   * @param rootModifications the modification count of the root which the compiled tree accounts for
+   * @return the compiled tree
+   */
+  @NonNull CompiledTree update(final @NonNull RootNode root, final @NonNull Collection<String> names, final int rootModifications) {
+    final Map<String, @Nullable ChildNode> children = new HashMap<>();
+    for(final String name : names) {
+      children.put(name, root.child(name));
+    }
+    // the children of the root in the compiled tree - the named children, and the tops of this tree's other segments
+    final Predicate<Node> tops = node -> {
+      if(!(node instanceof ChildNode)) {
+        return false;
+      }
+      final String name = ((ChildNode) node).name();
+      return children.containsKey(name) ? children.get(name) == node : this.segment(node) != null;
+    };
+    final Builder builder = new Builder(this, true);
+    for(final Map.Entry<String, @Nullable ChildNode> entry : children.entrySet()) {
+      final @Nullable Segment previous = this.segment(entry.getKey());
+      final @Nullable ChildNode child = entry.getValue();
+      if(previous != null && previous.nodes[0] == child && previous.valid(tops)) {
+        continue;
+      }
+      if(child != null) {
+        builder.put(builder.pages.replace(previous, Segment.compile(child, tops)));
+      } else if(previous != null) {
+        builder.pages.free(previous);
+        builder.remove(entry.getKey());
+      }
+    }
+    return builder.build(root, rootModifications);
+  }
+
+  /**
+   * Recompiles the part of this tree which made the node at {@code index} {@link #stale(int) stale}, or
+   * which holds a redirect to a {@link #STALE stale} target.
+   *
+   * <p>For the root, only the children which were added, replaced or removed are compiled.</p>
+   *
+   * @param root the root node
+   * @param index the node index
+   * @return the compiled tree
+   */
+  @NonNull CompiledTree repair(final @NonNull RootNode root, final int index) {
+    if(index == ROOT) {
+      final int rootModifications = root.modifications();
+      return this.update(root, this.changed(root), rootModifications);
+    }
+    return this.update(root, Collections.singleton(this.segment(index).nodes[0].name()), this.rootModifications);
+  }
+
+  /**
+   * Gets the names of the children of the root which were added, replaced or removed since this tree was compiled.
+   *
+   * @param root the root node
+   * @return the names
+   */
+  @NonNull Set<String> changed(final @NonNull RootNode root) {
+    final Set<String> names = new HashSet<>();
+    int unchanged = 0;
+    for(final ChildNode child : root.children()) {
+      if(this.segment(child) != null) {
+        unchanged++;
+      } else {
+        names.add(child.name());
+      }
+    }
+    if(unchanged != this.literals + this.others.length) {
+      for(final Segment segment : this.segments()) {
+        final ChildNode top = segment.nodes[0];
+        if(root.child(top.name()) != top) {
+          names.add(top.name());
+        }
+      }
+    }
+    return names;
+  }
+
+  /**
+   * Gets the modification count of the root which this tree accounts for.
+   *
+   * @return the modification count
+   */
+  int rootModifications() {
+    return this.rootModifications;
+  }
+
+  /**
+   * Gets this tree, accounting for a modification count of the root whose changes are compiled separately.
+   *
+   * @param rootModifications the modification count
+   * @return the tree
+   */
+  @NonNull CompiledTree accounting(final int rootModifications) {
+    return new CompiledTree(this.root, rootModifications, this.buckets, this.literals, this.others, this.rootFlags, this.rootCandidates, this.rootLookahead, this.rootRejected, this.pages, this.pageCount, this.livePages);
+  }
+
+  private @NonNull List<Segment> segments() {
+    final List<Segment> segments = new ArrayList<>(this.literals + this.others.length);
+    for(final Bucket bucket : this.buckets) {
+      segments.addAll(Arrays.asList(bucket.segments));
+    }
+    segments.addAll(Arrays.asList(this.others));
+    return segments;
+  }
+
+  /**
+   * Computes the lookahead tables of a node.
+   *
+   * @param nodes the candidate nodes
+   * @param candidates the candidate indices, in the same order
+   * @return the accepting and rejecting tables, or {@code null} if no candidate is filtered out by any character
+   */
+  private static int[][] @Nullable [] lookahead(final ChildNode[] nodes, final int[] candidates) {
+    if(candidates.length == 0) {
+      return null;
+    }
+    final int[][] accepting = new int[LOOKAHEAD][];
+    final int[][] rejecting = new int[LOOKAHEAD][];
+    final int[] accepted = new int[candidates.length];
+    final int[] arguments = new int[candidates.length];
+    boolean filtered = false;
+    for(char character = 0; character < LOOKAHEAD; character++) {
+      int acceptedCount = 0;
+      int argumentCount = 0;
+      for(int i = 0; i < candidates.length; i++) {
+        final ChildNode node = nodes[i];
+        if(node.canStartWith(character)) {
+          accepted[acceptedCount++] = candidates[i];
+        } else if(node instanceof ArgumentNode) {
+          arguments[argumentCount++] = candidates[i];
+        }
+      }
+      filtered |= acceptedCount != candidates.length;
+      accepting[character] = share(accepted, acceptedCount, candidates, character == 0 ? null : accepting[character - 1]);
+      rejecting[character] = share(arguments, argumentCount, EMPTY, character == 0 ? null : rejecting[character - 1]);
+    }
+    return filtered ? new int[][][]{accepting, rejecting} : null;
+  }
+
+  // lookahead tables are mostly runs of identical entries, which share a single array
+  private static int[] share(final int[] array, final int length, final int[] full, final int @Nullable [] previous) {
+    if(length == full.length) {
+      return full;
+    } else if(previous != null && previous.length == length && equals(array, previous, length)) {
+      return previous;
+    }
+    return Arrays.copyOf(array, length);
+  }
+
+  private static boolean equals(final int[] a, final int[] b, final int length) {
+    for(int i = 0; i < length; i++) {
+      if(a[i] != b[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  // the segment whose top is a child of the root
+  private @Nullable Segment segment(final @NonNull Node top) {
+    if(!(top instanceof ChildNode)) {
+      return null;
+    }
+    final @Nullable Segment segment = this.segment(((ChildNode) top).name());
+    return segment != null && segment.nodes[0] == top ? segment : null;
+  }
+
+  // the segment of the child of the root with the given name
+  private @Nullable Segment segment(final @NonNull String name) {
+    final @Nullable Segment segment = this.buckets[bucket(name.hashCode(), this.buckets.length)].get(name);
+    if(segment != null) {
+      return segment;
+    }
+    for(final Segment other : this.others) {
+      if(other.nodes[0].name().equals(name)) {
+        return other;
+      }
+    }
+    return null;
+  }
+
+  // the bucket of a hash - the high bits of the product are used, as literal tables use the low bits of the hash
+  private static int bucket(final int hash, final int buckets) {
+    return (hash * 0x9e3779b9) >>> (32 - Integer.numberOfTrailingZeros(buckets));
+  }
+
+  private @NonNull Segment segment(final int index) {
+    final int page = index >>> PAGE_BITS;
+    return this.pages[page >>> CHUNK_BITS][page & CHUNK_MASK];
+  }
+
+  /**
+   * Gets the name of the child of the root which the node at {@code index} was compiled under.
+   *
+   * @param index the node index
+   * @return the name, or {@code null} for the root
+   */
+  @Nullable String command(final int index) {
+    return index == ROOT ? null : this.segment(index).nodes[0].name();
+  }
+
+  /**
+   * Checks if the node at {@code index} has been modified since this tree was compiled.
+   *
+   * @param index the node index
+   * @return {@code true} if the node has been modified
+   */
+  boolean stale(final int index) {
+    if(index == ROOT) {
+      return this.root.modifications() != this.rootModifications;
+    }
+    final Segment segment = this.segment(index);
+    final int local = index - segment.base;
+    return segment.nodes[local].modifications() != segment.modifications[local];
+  }
+
+  /**
+   * Gets the node at {@code index}, which may be the root.
+   *
+   * @param index the node index
+   * @return the node
+   */
+  @NonNull Node get(final int index) {
+    return index == ROOT ? this.root : this.node(index);
+  }
+
+  /**
+   * Gets the child node at {@code index}.
+   *
+   * @param index the node index
+   * @return the node
+   */
+  @NonNull ChildNode node(final int index) {
+    final Segment segment = this.segment(index);
+    return segment.nodes[index - segment.base];
+  }
+
+  /**
+   * Gets the index of the redirect target of the node at {@code index}.
+   *
+   * @param index the node index
+   * @return the redirect target index, {@link #NONE}, or {@link #STALE}
+   */
+  int redirect(final int index) {
+    if(index == ROOT) {
+      return NONE;
+    }
+    final Segment segment = this.segment(index);
+    final int local = index - segment.base;
+    final int redirect = segment.redirects[local];
+    if(redirect == EXTERNAL) {
+      final @Nullable Segment target = this.segment(segment.targets[local]);
+      return target != null ? target.base : STALE;
+    }
+    return redirect == NONE ? NONE : segment.base + redirect;
+  }
+
+  /**
+   * Gets the capabilities required by the node at {@code index}.
+   *
+   * @param index the node index
+   * @return the capabilities, or {@code null} if the node's requirement must be tested
+   */
+  @Nullable Capabilities capabilities(final int index) {
+    final Segment segment = this.segment(index);
+    return segment.capabilities[index - segment.base];
+  }
+
+  /**
+   * Gets the index of the literal child of the node at {@code index} matching the characters
+   * between {@code start} and {@code end} in {@code string}.
+   *
+   * @param index the node index
+   * @param string the string
+   * @param start the start index, inclusive
+   * @param end the end index, exclusive
+   * @return the literal child index, or {@link #NONE}
+   */
+  int literal(final int index, final String string, final int start, final int end) {
+    if(index == ROOT) {
+      int hash = 0;
+      for(int i = start; i < end; i++) {
+        hash = 31 * hash + string.charAt(i);
+      }
+      final @Nullable Segment segment = this.buckets[bucket(hash, this.buckets.length)].get(string, start, end);
+      return segment != null ? segment.base : NONE;
+    }
+    final Segment segment = this.segment(index);
+    final int literal = segment.literals[index - segment.base].get(string, start, end);
+    return literal == LiteralTable.ABSENT ? NONE : segment.base + literal;
+  }
+
+  /**
+   * Checks if the node at {@code index} has any literal children.
+   *
+   * @param index the node index
+   * @return {@code true} if the node has literal children
+   */
+  boolean hasLiterals(final int index) {
+    if(index == ROOT) {
+      return this.literals > 0;
+    }
+    final Segment segment = this.segment(index);
+    return segment.literals[index - segment.base].size() > 0;
+  }
+
+  /**
+   * Checks if the node at {@code index} has any flag children.
+   *
+   * @param index the node index
+   * @return {@code true} if the node has flag children
+   */
+  boolean hasFlags(final int index) {
+    return !this.flags(index).isEmpty();
+  }
+
+  /**
+   * Checks if the node at {@code index} has any children.
+   *
+   * @param index the node index
+   * @return {@code true} if the node has children
+   */
+  boolean hasChildren(final int index) {
+    if(index == ROOT) {
+      return this.literals > 0 || this.others.length > 0;
+    }
+    final Segment segment = this.segment(index);
+    return segment.candidates[index - segment.base].length > 0 || this.hasLiterals(index) || this.hasFlags(index);
+  }
+
+  /**
+   * Gets the index of the short flag child of the node at {@code index} matching the character
+   * at {@code at} in {@code string}.
+   *
+   * @param index the node index
+   * @param string the string
+   * @param at the index of the flag character
+   * @return the flag child index, or {@link #NONE}
+   */
+  int flag(final int index, final String string, final int at) {
+    final int flag = this.flags(index).get(string, at);
+    return flag == FlagTable.ABSENT ? NONE : this.offset(index) + flag;
+  }
+
+  /**
+   * Gets the index of the long flag child of the node at {@code index} matching the characters
+   * between {@code start} and {@code end} in {@code string}.
+   *
+   * @param index the node index
+   * @param string the string
+   * @param start the start index, inclusive
+   * @param end the end index, exclusive
+   * @return the flag child index, or {@link #NONE}
+   */
+  int flag(final int index, final String string, final int start, final int end) {
+    final int flag = this.flags(index).get(string, start, end);
+    return flag == FlagTable.ABSENT ? NONE : this.offset(index) + flag;
+  }
+
+  private @NonNull FlagTable flags(final int index) {
+    if(index == ROOT) {
+      return this.rootFlags;
+    }
+    final Segment segment = this.segment(index);
+    return segment.flags[index - segment.base];
+  }
+
+  /**
+   * Gets the offset added to the child indices of the node at {@code index} returned
+   * by {@link #candidates(int, int)} and {@link #rejected(int, int)}.
+   *
+   * @param index the node index
+   * @return the offset
+   */
+  int offset(final int index) {
+    return index == ROOT ? 0 : this.segment(index).base;
+  }
+
+  /**
+   * Gets the argument children of the node at {@code index} which can match input starting with {@code next}.
+   *
+   * @param index the node index
+   * @param next the next character, or {@code -1} at the end of input
+   * @return the candidate node indices, relative to the {@link #offset(int) offset} of the node
+   */
+  int[] candidates(final int index, final int next) {
+    final int[] candidates;
+    final int @Nullable [][] lookahead;
+    if(index == ROOT) {
+      candidates = this.rootCandidates;
+      lookahead = this.rootLookahead;
+    } else {
+      final Segment segment = this.segment(index);
+      candidates = segment.candidates[index - segment.base];
+      lookahead = segment.lookahead[index - segment.base];
+    }
+    if(lookahead == null || next < 0 || next >= LOOKAHEAD) {
+      return candidates;
+    }
+    return lookahead[next];
+  }
+
+  /**
+   * Gets the argument children of the node at {@code index} which were skipped because they cannot
+   * match input starting with {@code next}.
+   *
+   * @param index the node index
+   * @param next the next character, or {@code -1} at the end of input
+   * @return the rejected node indices, relative to the {@link #offset(int) offset} of the node
+   */
+  int[] rejected(final int index, final int next) {
+    final int @Nullable [][] rejected;
+    if(index == ROOT) {
+      rejected = this.rootRejected;
+    } else {
+      final Segment segment = this.segment(index);
+      rejected = segment.rejected[index - segment.base];
+    }
+    if(rejected == null || next < 0 || next >= LOOKAHEAD) {
+      return EMPTY;
+    }
+    return rejected[next];
+  }
+
+  /**
+   * The children of the root of a tree being compiled.
+   */
+  private static final class Builder {
+    final Pages pages;
+    private final @Nullable CompiledTree previous;
+    private Bucket[] buckets;
+    // whether the buckets array is owned by this builder, or still shared with the previous tree
+    private boolean copied;
+    private int literals;
+    private final List<Segment> others;
+    private boolean othersChanged;
+
+    /**
+     * Creates a builder.
+     *
+     * @param previous the previous tree, whose pages are shared
+     * @param keep whether to start with the children of the root of the previous tree
+     */
+    Builder(final @Nullable CompiledTree previous, final boolean keep) {
+      this.pages = previous != null ? new Pages(previous) : new Pages();
+      this.previous = previous;
+      if(previous != null && keep) {
+        this.buckets = previous.buckets;
+        this.literals = previous.literals;
+        this.others = new ArrayList<>(Arrays.asList(previous.others));
+      } else {
+        this.buckets = new Bucket[]{Bucket.EMPTY, Bucket.EMPTY};
+        this.copied = true;
+        this.others = new ArrayList<>();
+        this.othersChanged = true;
+      }
+    }
+
+    // adds a placed segment, replacing the segment of the child with the same name
+    void put(final @NonNull Segment segment) {
+      final ChildNode top = segment.nodes[0];
+      final String name = top.name();
+      if(top instanceof LiteralNode) {
+        this.removeOther(name);
+        final int bucket = bucket(name.hashCode(), this.buckets.length);
+        if(this.buckets[bucket].get(name) == null) {
+          this.literals++;
+        }
+        this.set(bucket, this.buckets[bucket].with(segment));
+        return;
+      }
+      this.removeLiteral(name);
+      this.othersChanged = true;
+      for(int i = 0; i < this.others.size(); i++) {
+        if(this.others.get(i).nodes[0].name().equals(name)) {
+          this.others.set(i, segment);
+          return;
+        }
+      }
+      this.others.add(segment);
+    }
+
+    void remove(final @NonNull String name) {
+      this.removeLiteral(name);
+      this.removeOther(name);
+    }
+
+    private void removeLiteral(final @NonNull String name) {
+      final int bucket = bucket(name.hashCode(), this.buckets.length);
+      final Bucket without = this.buckets[bucket].without(name);
+      if(without != this.buckets[bucket]) {
+        this.literals--;
+        this.set(bucket, without);
+      }
+    }
+
+    private void removeOther(final @NonNull String name) {
+      this.othersChanged |= this.others.removeIf(segment -> segment.nodes[0].name().equals(name));
+    }
+
+    private void set(final int bucket, final @NonNull Bucket value) {
+      if(!this.copied) {
+        this.buckets = this.buckets.clone();
+        this.copied = true;
+      }
+      this.buckets[bucket] = value;
+    }
+
+    @NonNull CompiledTree build(final @NonNull RootNode root, final int rootModifications) {
+      Pages pages = this.pages;
+      int buckets = this.buckets.length;
+      while(this.literals > 2 * buckets * buckets) {
+        buckets <<= 1;
+      }
+      while(buckets > 2 && this.literals * 8 < buckets * buckets) {
+        buckets >>= 1;
+      }
+      if(pages.wasteful()) {
+        // too many pages are free - move every segment down, sharing its tables
+        pages = new Pages();
+        this.rehash(pages, buckets);
+        for(int i = 0; i < this.others.size(); i++) {
+          this.others.set(i, pages.place(this.others.get(i)));
+        }
+        this.othersChanged = true;
+      } else if(buckets != this.buckets.length) {
+        this.rehash(null, buckets);
+      }
+
+      final CompiledTree previous = this.previous;
+      if(!this.othersChanged && previous != null) {
+        return new CompiledTree(root, rootModifications, this.buckets, this.literals, previous.others, previous.rootFlags, previous.rootCandidates, previous.rootLookahead, previous.rootRejected, pages);
+      }
+      final List<FlagNode> flags = new ArrayList<>();
+      final List<Integer> flagIndices = new ArrayList<>();
+      final List<ChildNode> candidateNodes = new ArrayList<>();
+      final List<Integer> candidates = new ArrayList<>();
+      for(final Segment segment : this.others) {
+        final ChildNode top = segment.nodes[0];
+        if(top instanceof FlagNode) {
+          flags.add((FlagNode) top);
+          flagIndices.add(segment.base);
+        } else {
+          candidateNodes.add(top);
+          candidates.add(segment.base);
+        }
+      }
+      final int[] rootCandidates = Ints.toArray(candidates);
+      final int[][] @Nullable [] lookahead = lookahead(candidateNodes.toArray(new ChildNode[0]), rootCandidates);
+      return new CompiledTree(root, rootModifications, this.buckets, this.literals, this.others.toArray(new Segment[0]), FlagTable.of(flags, flagIndices), rootCandidates, lookahead != null ? lookahead[0] : null, lookahead != null ? lookahead[1] : null, pages);
+    }
+
+    // redistributes the literal segments into a number of buckets, placing them in new pages if given
+    private void rehash(final @Nullable Pages pages, final int count) {
+      final List<List<Segment>> lists = new ArrayList<>(count);
+      for(int i = 0; i < count; i++) {
+        lists.add(new ArrayList<>());
+      }
+      for(final Bucket bucket : this.buckets) {
+        for(final Segment segment : bucket.segments) {
+          lists.get(bucket(segment.nodes[0].name().hashCode(), count)).add(pages != null ? pages.place(segment) : segment);
+        }
+      }
+      this.buckets = new Bucket[count];
+      this.copied = true;
+      for(int i = 0; i < count; i++) {
+        this.buckets[i] = Bucket.of(lists.get(i));
+      }
+    }
+  }
+
+  /**
+   * The segments of the literal children of the root whose names share a bucket.
+   */
+  private static final class Bucket {
+    static final Bucket EMPTY = new Bucket(new Segment[0], LiteralTable.empty());
+    final Segment[] segments;
+    private final LiteralTable table;
+
+    private Bucket(final Segment[] segments, final LiteralTable table) {
+      this.segments = segments;
+      this.table = table;
+    }
+
+    static @NonNull Bucket of(final @NonNull List<Segment> segments) {
+      if(segments.isEmpty()) {
+        return EMPTY;
+      }
+      final String[] names = new String[segments.size()];
+      final int[] indices = new int[names.length];
+      for(int i = 0; i < names.length; i++) {
+        names[i] = segments.get(i).nodes[0].name();
+        indices[i] = i;
+      }
+      return new Bucket(segments.toArray(new Segment[0]), LiteralTable.of(names, indices));
+    }
+
+    @Nullable Segment get(final @NonNull String name) {
+      final int index = this.table.get(name);
+      return index == LiteralTable.ABSENT ? null : this.segments[index];
+    }
+
+    @Nullable Segment get(final @NonNull String string, final int start, final int end) {
+      final int index = this.table.get(string, start, end);
+      return index == LiteralTable.ABSENT ? null : this.segments[index];
+    }
+
+    @NonNull Bucket with(final @NonNull Segment segment) {
+      final List<Segment> segments = new ArrayList<>(this.segments.length + 1);
+      segments.addAll(Arrays.asList(this.segments));
+      final int index = this.table.get(segment.nodes[0].name());
+      if(index == LiteralTable.ABSENT) {
+        segments.add(segment);
+      } else {
+        segments.set(index, segment);
+      }
+      return of(segments);
+    }
+
+    @NonNull Bucket without(final @NonNull String name) {
+      final int index = this.table.get(name);
+      if(index == LiteralTable.ABSENT) {
+        return this;
+      }
+      final List<Segment> segments = new ArrayList<>(Arrays.asList(this.segments));
+      segments.remove(index);
+      return of(segments);
+    }
+  }
+
+  /**
+   * The page table of a tree being compiled.
+   *
+   * <p>Chunks are copied from the previous tree the first time they are changed.</p>
+   */
+  private static final class Pages {
+    Segment[][] chunks;
+    private boolean[] owned;
+    // the number of pages used, and how many of them belong to a segment - page 0 is the root's
+    int count;
+    int live;
+
+    Pages() {
+      this.chunks = new Segment[1][];
+      this.owned = new boolean[1];
+      this.count = 1;
+      this.live = 1;
+    }
+
+    Pages(final @NonNull CompiledTree tree) {
+      this.chunks = tree.pages.clone();
+      this.owned = new boolean[tree.pages.length];
+      this.count = tree.pageCount;
+      this.live = tree.livePages;
+    }
+
+    // places a segment after the last used page
+    @NonNull Segment place(final @NonNull Segment segment) {
+      final Segment placed = segment.at(this.count << PAGE_BITS);
+      final int pages = placed.pages();
+      for(int i = 0; i < pages; i++) {
+        this.set(this.count + i, placed);
+      }
+      this.count += pages;
+      this.live += pages;
+      return placed;
+    }
+
+    // places a segment in the pages of the segment it replaces, if it fits
+    @NonNull Segment replace(final @Nullable Segment previous, final @NonNull Segment segment) {
+      if(previous == null) {
+        return this.place(segment);
+      } else if(segment.pages() > previous.pages()) {
+        this.free(previous);
+        return this.place(segment);
+      }
+      final Segment placed = segment.at(previous.base);
+      final int first = previous.base >>> PAGE_BITS;
+      for(int i = 0; i < previous.pages(); i++) {
+        this.set(first + i, i < placed.pages() ? placed : null);
+      }
+      this.live -= previous.pages() - placed.pages();
+      return placed;
+    }
+
+    void free(final @NonNull Segment segment) {
+      final int first = segment.base >>> PAGE_BITS;
+      final int pages = segment.pages();
+      for(int i = 0; i < pages; i++) {
+        this.set(first + i, null);
+      }
+      this.live -= pages;
+    }
+
+    // more than half of the pages are free
+    boolean wasteful() {
+      return this.count > CHUNK_SIZE && this.count > this.live * 2;
+    }
+
+    private void set(final int page, final @Nullable Segment segment) {
+      final int chunk = page >>> CHUNK_BITS;
+      if(chunk >= this.chunks.length) {
+        this.chunks = Arrays.copyOf(this.chunks, Math.max(chunk + 1, this.chunks.length * 2));
+        this.owned = Arrays.copyOf(this.owned, this.chunks.length);
+      }
+      if(!this.owned[chunk]) {
+        this.chunks[chunk] = this.chunks[chunk] == null ? new Segment[CHUNK_SIZE] : this.chunks[chunk].clone();
+        this.owned[chunk] = true;
+      }
+      this.chunks[chunk][page & CHUNK_MASK] = segment;
+    }
+  }
+
+  /**
+   * A compiled segment of a tree, with indices local to the segment.
+   */
+  static final class Segment {
+    // the index of the first node
+    final int base;
+    final ChildNode[] nodes;
+    final int[] modifications;
+    // local indices, NONE, or EXTERNAL when the target is the top of another segment
+    final int[] redirects;
+    final @Nullable ExecutableNode[] targets;
+    final int[][] candidates;
+    // per node, null when no candidate declares which characters it can start with
+    final int[][] @Nullable [] lookahead;
+    final int[][] @Nullable [] rejected;
+    final LiteralTable[] literals;
+    final FlagTable[] flags;
+    final @Nullable Capabilities[] capabilities;
+
+    private Segment(final int base, final ChildNode[] nodes, final int[] modifications, final int[] redirects, final @Nullable ExecutableNode[] targets, final int[][] candidates, final int[][] @Nullable [] lookahead, final int[][] @Nullable [] rejected, final LiteralTable[] literals, final FlagTable[] flags, final @Nullable Capabilities[] capabilities) {
+      this.base = base;
+      this.nodes = nodes;
+      this.modifications = modifications;
+      this.redirects = redirects;
+      this.targets = targets;
+      this.candidates = candidates;
+      this.lookahead = lookahead;
+      this.rejected = rejected;
+      this.literals = literals;
+      this.flags = flags;
+      this.capabilities = capabilities;
+    }
+
+    /**
+     * Compiles the segment of {@code top}.
+     *
+     * @param top the top node
+     * @param tops tests if a node is a child of the root
+     * @return the segment, which has not been placed
+     */
+    static @NonNull Segment compile(final @NonNull ChildNode top, final @NonNull Predicate<Node> tops) {
+      final Map<Node, Integer> indices = new IdentityHashMap<>();
+      final List<ChildNode> nodes = new ArrayList<>();
+      final List<int[]> candidates = new ArrayList<>();
+      final List<LiteralTable> literals = new ArrayList<>();
+      final List<FlagTable> flags = new ArrayList<>();
+      final List<Integer> modifications = new ArrayList<>();
+      final List<Integer> redirects = new ArrayList<>();
+      final List<ExecutableNode> targets = new ArrayList<>();
+      indices.put(top, 0);
+      nodes.add(top);
+      for(int i = 0; i < nodes.size(); i++) {
+        final ChildNode node = nodes.get(i);
+        final List<String> literalNames = new ArrayList<>();
+        final List<Integer> literalIndices = new ArrayList<>();
+        final List<FlagNode> flagNodes = new ArrayList<>();
+        final List<Integer> flagIndices = new ArrayList<>();
+        final List<Integer> candidateIndices = new ArrayList<>();
+        modifications.add(node.modifications());
+        for(final ChildNode child : node.children()) {
+          final int index = index(child, indices, nodes);
+          if(child instanceof LiteralNode) {
+            literalNames.add(child.name());
+            literalIndices.add(index);
+          } else if(child instanceof FlagNode) {
+            flagNodes.add((FlagNode) child);
+            flagIndices.add(index);
+          } else {
+            candidateIndices.add(index);
+          }
+        }
+        candidates.add(Ints.toArray(candidateIndices));
+        literals.add(LiteralTable.of(literalNames.toArray(new String[0]), Ints.toArray(literalIndices)));
+        flags.add(FlagTable.of(flagNodes, flagIndices));
+
+        final @Nullable ExecutableNode redirect = node instanceof ExecutableNode ? ((ExecutableNode) node).redirect() : null;
+        if(redirect == null) {
+          redirects.add(NONE);
+          targets.add(null);
+        } else if(!indices.containsKey(redirect) && tops.test(redirect)) {
+          redirects.add(EXTERNAL);
+          targets.add(redirect);
+        } else {
+          redirects.add(index(redirect, indices, nodes));
+          targets.add(null);
+        }
+      }
+
+      final int size = nodes.size();
+      final ChildNode[] array = nodes.toArray(new ChildNode[0]);
+      final int[][][] lookahead = new int[size][][];
+      final int[][][] rejected = new int[size][][];
+      final Capabilities[] capabilities = new Capabilities[size];
+      for(int i = 0; i < size; i++) {
+        final ChildNode node = array[i];
+        capabilities[i] = node.requirement() instanceof Requirement ? ((Requirement) node.requirement()).capabilities() : null;
+        final int[] local = candidates.get(i);
+        final ChildNode[] candidateNodes = new ChildNode[local.length];
+        for(int j = 0; j < local.length; j++) {
+          candidateNodes[j] = array[local[j]];
+        }
+        final int[][] @Nullable [] tables = lookahead(candidateNodes, local);
+        if(tables != null) {
+          lookahead[i] = tables[0];
+          rejected[i] = tables[1];
+        }
+      }
+      return new Segment(NONE, array, Ints.toArray(modifications), Ints.toArray(redirects), targets.toArray(new ExecutableNode[0]), candidates.toArray(new int[0][]), lookahead, rejected, literals.toArray(new LiteralTable[0]), flags.toArray(new FlagTable[0]), capabilities);
+    }
+
+    private static int index(final @NonNull ChildNode node, final Map<Node, Integer> indices, final List<ChildNode> nodes) {
+      @Nullable Integer index = indices.get(node);
+      if(index == null) {
+        index = nodes.size();
+        indices.put(node, index);
+        nodes.add(node);
+      }
+      return index;
+    }
+
+    // the segment placed at another base, sharing its tables
+    @NonNull Segment at(final int base) {
+      return base == this.base ? this : new Segment(base, this.nodes, this.modifications, this.redirects, this.targets, this.candidates, this.lookahead, this.rejected, this.literals, this.flags, this.capabilities);
+    }
+
+    int pages() {
+      return (this.nodes.length + (1 << PAGE_BITS) - 1) >>> PAGE_BITS;
+    }
+
+    // the segment can be reused if no node was modified, and every external redirect target is still a child of the root
+    boolean valid(final @NonNull Predicate<Node> tops) {
+      for(int i = 0; i < this.nodes.length; i++) {
+        if(this.nodes[i].modifications() != this.modifications[i]) {
+          return false;
+        } else if(this.targets[i] != null && !tops.test(this.targets[i])) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+}
@@ -36,15 +36,39 @@ import net.kyori.string.StringReader;
 import org.checkerframework.checker.nullness.qual.NonNull;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 
 /**
  * A command dispatcher.
+ *
+ * <p>Nodes may be registered from any thread, including while other threads are parsing: parsing never
+ * blocks, and walks an immutable snapshot of the tree which only includes registrations that completed
+ * before the snapshot was taken. A registration compiles the command it changed on the registering thread,
+ * and publishes the new snapshot at once.</p>
+ *
+ * <p>Parsing may also happen on several threads at once. A {@link Result result} is mutable and should stay
+ * on the thread which parsed it - to parse on one thread and execute on another, {@link #prepare(Result) prepare}
+ * the result and hand the immutable {@link PreparedCommand} to the executing thread.</p>
  */
 public interface Dispatcher extends Examinable {
   char ARGUMENT_SEPARATOR = ' ';
+  /**
+   * The default maximum parse depth.
+   */
+  int DEFAULT_MAX_DEPTH = 1024;
+  /**
+   * The default maximum number of redirects followed while parsing.
+   */
+  int DEFAULT_MAX_REDIRECTS = 256;
 
   /**
    * Creates a dispatcher.
@@ -55,6 +79,15 @@ public interface Dispatcher extends Examinable {
     return new DispatcherImpl();
   }
 
+  /**
+   * Creates a dispatcher builder.
+   *
+   * @return a dispatcher builder
+   */
+  static @NonNull Builder builder() {
+    return new DispatcherImpl.Builder();
+  }
+
   /**
    * Gets the root node.
    *
@@ -120,6 +153,55 @@ public interface Dispatcher extends Examinable {
    */
   @NonNull Dispatcher register(final @NonNull LiteralNode node, final @Nullable BiConsumer<Dispatcher, LiteralNode> consumer);
 
+  /**
+   * Registers a node on behalf of an owner.
+   *
+   * @param node the node builder
+   * @param owner the owner
+   * @return this dispatcher
+   * @see #unregister(Object)
+   */
+  default @NonNull Dispatcher register(final LiteralNode.@NonNull Builder node, final @NonNull Object owner) {
+    return this.register(node.build(), owner);
+  }
+
+  /**
+   * Registers a node on behalf of an owner.
+   *
+   * @param node the node
+   * @param owner the owner
+   * @return this dispatcher
+   * @see #unregister(Object)
+   */
+  @NonNull Dispatcher register(final @NonNull LiteralNode node, final @NonNull Object owner);
+
+  /**
+   * Unregisters everything registered on behalf of an owner.
+   *
+   * <p>Nodes registered by the owner are removed, as are children and executables it merged into nodes
+   * registered by others. Removing takes time proportional to what the owner registered, plus the size of
+   * the subtrees it removes, and then the commands the owner registered are recompiled.</p>
+   *
+   * @param owner the owner
+   * @return this dispatcher
+   * @see RootNode#removeAll(Object)
+   */
+  @NonNull Dispatcher unregister(final @NonNull Object owner);
+
+  /**
+   * Compiles the registered nodes.
+   *
+   * <p>The node tree is flattened into an immutable, index-based representation which is walked when parsing.
+   * {@link #register(LiteralNode) Registering} a node compiles the command it changed straight away. Nodes
+   * modified directly - by adding or removing children of the root or of a registered node - are found
+   * by the next parse which reaches them, and only the commands they belong to are recompiled. Calling this
+   * method checks every node for modifications, recompiles the commands which changed, and publishes the tree
+   * to subsequent parses.</p>
+   *
+   * @return this dispatcher
+   */
+  @NonNull Dispatcher compile();
+
   /**
    * Parses and returns a parse result.
    *
@@ -142,6 +224,95 @@ public interface Dispatcher extends Examinable {
    */
   @Nullable Result parse(final @NonNull StringReader reader, final @NonNull CommandContext context) throws CommandException;
 
+  /**
+   * Parses a command without throwing.
+   *
+   * <p>Unlike {@link #parse(String, CommandContext)}, a successful outcome has consumed all input.</p>
+   *
+   * @param string the string
+   * @param context the context
+   * @return the parse outcome
+   */
+  default @NonNull ParseOutcome tryParse(final @NonNull String string, final @NonNull CommandContext context) {
+    return this.tryParse(StringReader.create(string), context);
+  }
+
+  /**
+   * Parses a command without throwing.
+   *
+   * <p>Unlike {@link #parse(StringReader, CommandContext)}, a successful outcome has consumed all input.</p>
+   *
+   * @param reader the string reader
+   * @param context the context
+   * @return the parse outcome
+   */
+  @NonNull ParseOutcome tryParse(final @NonNull StringReader reader, final @NonNull CommandContext context);
+
+  /**
+   * Parses a batch of commands.
+   *
+   * @param inputs the inputs
+   * @param context the context shared by every input
+   * @return the outcome of parsing each input, in the same order as {@code inputs}
+   * @see #parseAll(List, List)
+   */
+  default @NonNull List<ParseOutcome> parseAll(final @NonNull List<String> inputs, final @NonNull CommandContext context) {
+    return this.parseAll(inputs, Collections.nCopies(inputs.size(), context));
+  }
+
+  /**
+   * Parses a batch of commands.
+   *
+   * <p>Failures are reported by the outcome of each input rather than thrown. Inputs are parsed grouped by
+   * their command, reusing parse buffers across the batch, which is cheaper than parsing each on its own.</p>
+   *
+   * @param inputs the inputs
+   * @param contexts the context of each input
+   * @return the outcome of parsing each input, in the same order as {@code inputs}
+   * @throws IllegalArgumentException if there is not exactly one context per input
+   */
+  @NonNull List<ParseOutcome> parseAll(final @NonNull List<String> inputs, final @NonNull List<? extends CommandContext> contexts);
+
+  /**
+   * Executes a batch of commands.
+   *
+   * @param inputs the inputs
+   * @param context the context shared by every input
+   * @return the exception encountered by each input, or {@code null} if it was executed, in the same order as {@code inputs}
+   * @see #executeAll(List, List)
+   */
+  default @NonNull List<@Nullable CommandException> executeAll(final @NonNull List<String> inputs, final @NonNull CommandContext context) {
+    return this.executeAll(inputs, Collections.nCopies(inputs.size(), context));
+  }
+
+  /**
+   * Executes a batch of commands.
+   *
+   * <p>Every input is {@link #parseAll(List, List) parsed} before any is executed. Commands are then executed
+   * in the order of {@code inputs}, and a failure does not prevent the remaining commands from executing. An
+   * unchecked exception thrown by a command is reported as a {@link CommandException} caused by it.</p>
+   *
+   * @param inputs the inputs
+   * @param contexts the context of each input
+   * @return the exception encountered by each input, or {@code null} if it was executed, in the same order as {@code inputs}
+   * @throws IllegalArgumentException if there is not exactly one context per input
+   */
+  default @NonNull List<@Nullable CommandException> executeAll(final @NonNull List<String> inputs, final @NonNull List<? extends CommandContext> contexts) {
+    final List<ParseOutcome> outcomes = this.parseAll(inputs, contexts);
+    final List<@Nullable CommandException> exceptions = new ArrayList<>(outcomes.size());
+    for(final ParseOutcome outcome : outcomes) {
+      try {
+        this.execute(outcome.orThrow());
+        exceptions.add(null);
+      } catch(final CommandException e) {
+        exceptions.add(e);
+      } catch(final RuntimeException e) {
+        exceptions.add(new CommandException(e));
+      }
+    }
+    return exceptions;
+  }
+
   /**
    * Executes a command.
    *
@@ -170,6 +341,75 @@ public interface Dispatcher extends Examinable {
    */
   void execute(final @NonNull Result result) throws CommandException;
 
+  /**
+   * Parses a command and prepares it to be executed later.
+   *
+   * @param string the string
+   * @param context the context
+   * @return the prepared command
+   * @throws CommandException if the command could not be parsed
+   * @see #prepare(Result)
+   */
+  default @NonNull PreparedCommand prepare(final @NonNull String string, final @NonNull CommandContext context) throws CommandException {
+    return this.prepare(this.tryParse(string, context).orThrow());
+  }
+
+  /**
+   * Prepares a parse result to be executed later, possibly on another thread.
+   *
+   * @param result the parse result
+   * @return the prepared command
+   * @throws CommandException if the result did not consume all input
+   */
+  @NonNull PreparedCommand prepare(final @NonNull Result result) throws CommandException;
+
+  /**
+   * Executes a command asynchronously.
+   *
+   * @param string the string
+   * @param context the context
+   * @param executor the executor to execute on
+   * @return a future which completes when execution has finished
+   * @see #executeAsync(Result, Executor)
+   */
+  default @NonNull CompletableFuture<Void> executeAsync(final @NonNull String string, final @NonNull CommandContext context, final @NonNull Executor executor) {
+    return this.executeAsync(StringReader.create(string), context, executor);
+  }
+
+  /**
+   * Executes a command asynchronously.
+   *
+   * @param reader the string reader
+   * @param context the context
+   * @param executor the executor to execute on
+   * @return a future which completes when execution has finished
+   * @see #executeAsync(Result, Executor)
+   */
+  default @NonNull CompletableFuture<Void> executeAsync(final @NonNull StringReader reader, final @NonNull CommandContext context, final @NonNull Executor executor) {
+    final Result result;
+    try {
+      result = this.tryParse(reader, context).orThrow();
+    } catch(final CommandException e) {
+      final CompletableFuture<Void> future = new CompletableFuture<>();
+      future.completeExceptionally(e);
+      return future;
+    }
+    return this.executeAsync(result, executor);
+  }
+
+  /**
+   * Executes a command asynchronously.
+   *
+   * <p>The executable is called on {@code executor}. An {@link ExecutableNode.AsyncExecutable asynchronous executable}
+   * may complete later, on any thread, and the returned future completes with it. Exceptions - including
+   * a {@link CommandException} - complete the returned future exceptionally rather than being thrown.</p>
+   *
+   * @param result the parse result
+   * @param executor the executor to execute on
+   * @return a future which completes when execution has finished
+   */
+  @NonNull CompletableFuture<Void> executeAsync(final @NonNull Result result, final @NonNull Executor executor);
+
   /**
    * Gets the usage for {@code node}.
    *
@@ -179,6 +419,122 @@ public interface Dispatcher extends Examinable {
    */
   @NonNull Map<ChildNode, String> usage(final @NonNull Node node, final @NonNull CommandContext context);
 
+  /**
+   * Renders the usage for {@code node} into {@code appendable}.
+   *
+   * <p>The usage of each child of {@code node} which can be used is appended, followed by a line feed.
+   * Usages are memoized, so rendering the same nodes again is mostly cache hits until the tree is modified.</p>
+   *
+   * @param node the node
+   * @param context the context
+   * @param appendable the appendable
+   * @throws IOException if an exception is encountered while appending
+   */
+  void usage(final @NonNull Node node, final @NonNull CommandContext context, final @NonNull Appendable appendable) throws IOException;
+
+  /**
+   * A dispatcher builder.
+   */
+  interface Builder {
+    /**
+     * Sets the maximum number of inputs to cache parse results for.
+     *
+     * <p>Results are only cached for input that was fully parsed. A cached result is reused for the same
+     * input when no node visited while parsing it has been modified, and every requirement tested while
+     * parsing it has the same outcome for the new context. Argument types are assumed to parse the same
+     * input to the same value regardless of context.</p>
+     *
+     * <p>A size of {@code 0}, the default, disables caching.</p>
+     *
+     * @param maximumSize the maximum size
+     * @return this builder
+     */
+    @NonNull Builder cache(final long maximumSize);
+
+    /**
+     * Sets how long the outcome of a requirement is remembered for a context.
+     *
+     * <p>Requirement outcomes are always remembered for the duration of a single parse or usage call,
+     * so a requirement shared by many nodes is only tested once. With a requirement cache, outcomes are
+     * also remembered across calls made with the same context instance, until {@code duration} has
+     * passed. A duration of {@code 0}, the default, disables the requirement cache.</p>
+     *
+     * @param duration the duration
+     * @param unit the unit of {@code duration}
+     * @return this builder
+     */
+    @NonNull Builder requirementCache(final long duration, final @NonNull TimeUnit unit);
+
+    /**
+     * Sets how a branch is chosen when several branches consume all input.
+     *
+     * <p>The default is {@link Ambiguity#FIRST}.</p>
+     *
+     * @param ambiguity the ambiguity policy
+     * @return this builder
+     */
+    @NonNull Builder ambiguity(final @NonNull Ambiguity ambiguity);
+
+    /**
+     * Sets the maximum depth of a single branch: the number of nodes, starting with the root, which are
+     * followed by more input. Each redirect target counts as a node. A branch which would go deeper fails.
+     *
+     * <p>The default is {@value #DEFAULT_MAX_DEPTH}.</p>
+     *
+     * @param maxDepth the maximum depth
+     * @return this builder
+     */
+    @NonNull Builder maxDepth(final int maxDepth);
+
+    /**
+     * Sets the maximum number of redirects a single branch may follow. A branch which would follow
+     * more fails.
+     *
+     * <p>The default is {@value #DEFAULT_MAX_REDIRECTS}.</p>
+     *
+     * @param maxRedirects the maximum number of redirects
+     * @return this builder
+     */
+    @NonNull Builder maxRedirects(final int maxRedirects);
+
+    /**
+     * Builds a dispatcher.
+     *
+     * @return the dispatcher
+     */
+    @NonNull Dispatcher build();
+  }
+
+  /**
+   * How a branch is chosen when several branches consume all input.
+   *
+   * <p>Branches are parsed in order: literals before flags, and flags before other children in the order
+   * they were added. A branch which consumes all input is always preferred over one which does not, and
+   * among branches which do not, the one which got furthest is kept to report an error from.</p>
+   */
+  enum Ambiguity {
+    /**
+     * The first branch to consume all input is chosen, and no further branches are parsed.
+     */
+    FIRST,
+    /**
+     * The branch which matched the most nodes is chosen. Ties go to the first branch.
+     *
+     * <p>A token of flags counts as one node, however many flags it combines.</p>
+     */
+    LONGEST,
+    /**
+     * The branch which matched the most literals is chosen, then the one which matched the most nodes.
+     * Ties go to the first branch.
+     */
+    PRIORITY
+  }
+
+  /**
+   * The result of parsing a command.
+   *
+   * <p>A result is mutable and not thread-safe. See {@link PreparedCommand} for a form which is.</p>
+   */
   class Result {
     final StringReader reader;
     final CommandStack.Builder stack;
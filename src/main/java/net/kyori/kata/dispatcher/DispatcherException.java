@@ -35,6 +35,10 @@ public class DispatcherException extends ContextualCommandException {
     super(reader, message, cause);
   }
 
+  protected DispatcherException(final StringReaderGetter reader) {
+    super(reader);
+  }
+
   /**
    * An exception thrown when an unknown argument is encountered.
    */
@@ -61,4 +65,46 @@ public class DispatcherException extends ContextualCommandException {
       super(reader, "Expected argument separator ('" + Dispatcher.ARGUMENT_SEPARATOR + "'), but found a node that has not been completely parse");
     }
   }
+
+  /**
+   * An exception thrown when a branch would exceed the maximum parse depth.
+   */
+  public static class DepthExceeded extends DispatcherException {
+    private final int maxDepth;
+
+    public DepthExceeded(final StringReaderGetter reader, final int maxDepth) {
+      super(reader);
+      this.maxDepth = maxDepth;
+    }
+
+    public int maxDepth() {
+      return this.maxDepth;
+    }
+
+    @Override
+    public String message() {
+      return "Maximum parse depth of " + this.maxDepth + " exceeded";
+    }
+  }
+
+  /**
+   * An exception thrown when a branch would follow more than the maximum number of redirects.
+   */
+  public static class RedirectsExceeded extends DispatcherException {
+    private final int maxRedirects;
+
+    public RedirectsExceeded(final StringReaderGetter reader, final int maxRedirects) {
+      super(reader);
+      this.maxRedirects = maxRedirects;
+    }
+
+    public int maxRedirects() {
+      return this.maxRedirects;
+    }
+
+    @Override
+    public String message() {
+      return "Maximum of " + this.maxRedirects + " redirects exceeded";
+    }
+  }
 }
@@ -23,42 +23,93 @@
  */
 package net.kyori.kata.dispatcher;
 
-import com.google.common.collect.ComparisonChain;
-import net.kyori.kata.Usage;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import net.kyori.kata.context.CommandContext;
 import net.kyori.kata.context.CommandStack;
 import net.kyori.kata.exception.CommandException;
+import net.kyori.kata.exception.ContextualCommandException;
+import net.kyori.kata.node.ArgumentNode;
 import net.kyori.kata.node.ChildNode;
 import net.kyori.kata.node.ExecutableNode;
 import net.kyori.kata.node.FlagNode;
 import net.kyori.kata.node.LiteralNode;
 import net.kyori.kata.node.Node;
 import net.kyori.kata.node.RootNode;
+import net.kyori.kata.requirement.Capabilities;
+import net.kyori.kata.util.Tokens;
 import net.kyori.lambda.examine.ExaminableProperty;
+import net.kyori.string.StringRange;
 import net.kyori.string.StringReader;
 import org.checkerframework.checker.nullness.qual.NonNull;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
-import java.util.ArrayList;
+import java.io.IOException;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.Comparator;
+import java.util.Collections;
 import java.util.LinkedHashMap;
-import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.StringJoiner;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
-import java.util.stream.Collectors;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
 import java.util.stream.Stream;
 
 final class DispatcherImpl implements Dispatcher {
-  private static final Comparator<Result> COMPARATOR = (a, b) -> ComparisonChain.start()
-    .compareTrueFirst(a.reader.readable(), b.reader.readable())
-    .compareFalseFirst(a.reader.readable(), b.reader.readable())
-    .result();
+  private static final int[] EMPTY = new int[0];
+  private static final int BRANCH_FAILED = 0;
+  private static final int BRANCH_PARSED = 1;
+  private static final int BRANCH_REDIRECTED = 2;
+  private static final int BRANCH_PENDING = 3;
+  private static final int PHASE_ENTER = 0;
+  private static final int PHASE_LITERAL = 1;
+  private static final int PHASE_FLAGS = 2;
+  private static final int PHASE_CANDIDATES = 3;
+  private static final int PHASE_FINISH = 4;
+  private static final char FLAG_PREFIX = '-';
+  // the number of times the tree is compiled, or a parse is repaired, before giving up on doing so optimistically
+  private static final int ATTEMPTS = 8;
   private final RootNode root = Node.root();
+  private final @Nullable ParseCache cache;
+  private final UsageCache usages = new UsageCache();
+  private final @Nullable Cache<CommandContext, Map<Predicate<CommandContext>, Boolean>> requirements;
+  private final Ambiguity ambiguity;
+  private final int maxDepth;
+  private final int maxRedirects;
+  // the published tree - parsing only ever reads a snapshot, so nodes may be registered while parsing
+  private final AtomicReference<CompiledTree> tree = new AtomicReference<>(CompiledTree.compile(this.root, null));
+  // the number of registrations in progress per command - their nodes are modified before the tree which includes them is published
+  private final Map<String, Integer> registering = new ConcurrentHashMap<>();
+  // the names of the commands registered on behalf of each owner
+  private final Map<Object, Set<String>> owners = new ConcurrentHashMap<>();
+
+  DispatcherImpl() {
+    this.cache = null;
+    this.requirements = null;
+    this.ambiguity = Ambiguity.FIRST;
+    this.maxDepth = DEFAULT_MAX_DEPTH;
+    this.maxRedirects = DEFAULT_MAX_REDIRECTS;
+  }
+
+  private DispatcherImpl(final @NonNull Builder builder) {
+    this.cache = builder.cacheSize > 0 ? new ParseCache(builder.cacheSize) : null;
+    this.requirements = builder.requirementTtl > 0 ? CacheBuilder.newBuilder()
+      .weakKeys()
+      .expireAfterWrite(builder.requirementTtl, TimeUnit.NANOSECONDS)
+      .build() : null;
+    this.ambiguity = builder.ambiguity;
+    this.maxDepth = builder.maxDepth;
+    this.maxRedirects = builder.maxRedirects;
+  }
 
   @Override
   public @NonNull RootNode root() {
@@ -67,45 +118,332 @@ final class DispatcherImpl implements Dispatcher {
 
   @Override
   public @NonNull Dispatcher register(final @NonNull LiteralNode node) {
-    this.root.add(node);
-    return this;
+    return this.register(node, (BiConsumer<Dispatcher, LiteralNode>) null);
   }
 
   @Override
   public @NonNull Dispatcher register(final @NonNull LiteralNode node, final @Nullable Consumer<LiteralNode> consumer) {
-    this.root.add(node);
-    if(consumer != null) {
-      consumer.accept(node);
+    return this.register(node, consumer != null ? (dispatcher, n) -> consumer.accept(n) : null);
+  }
+
+  @Override
+  public @NonNull Dispatcher register(final @NonNull LiteralNode node, final @Nullable BiConsumer<Dispatcher, LiteralNode> consumer) {
+    final Collection<String> names = Collections.singleton(node.name());
+    this.registering(names);
+    try {
+      this.modify(() -> this.root.add(node));
+      try {
+        if(consumer != null) {
+          consumer.accept(this, node);
+        }
+      } finally {
+        this.publish(names);
+      }
+    } finally {
+      this.registered(names);
     }
     return this;
   }
 
   @Override
-  public @NonNull Dispatcher register(final @NonNull LiteralNode node, final @Nullable BiConsumer<Dispatcher, LiteralNode> consumer) {
-    this.root.add(node);
-    if(consumer != null) {
-      consumer.accept(this, node);
+  public @NonNull Dispatcher register(final @NonNull LiteralNode node, final @NonNull Object owner) {
+    final Collection<String> names = Collections.singleton(node.name());
+    this.registering(names);
+    try {
+      this.owners.computeIfAbsent(owner, key -> ConcurrentHashMap.newKeySet()).add(node.name());
+      this.modify(() -> this.root.add(node, owner));
+      this.publish(names);
+    } finally {
+      this.registered(names);
+    }
+    return this;
+  }
+
+  @Override
+  public @NonNull Dispatcher unregister(final @NonNull Object owner) {
+    final @Nullable Set<String> owned = this.owners.remove(owner);
+    final Collection<String> names = owned != null ? owned : Collections.emptySet();
+    this.registering(names);
+    try {
+      this.modify(() -> this.root.removeAll(owner));
+      this.publish(names);
+    } finally {
+      this.registered(names);
+    }
+    return this;
+  }
+
+  // parses do not treat the nodes of the named commands as modified until the registration is done
+  private void registering(final @NonNull Collection<String> names) {
+    for(final String name : names) {
+      this.registering.merge(name, 1, Integer::sum);
     }
+  }
+
+  private void registered(final @NonNull Collection<String> names) {
+    for(final String name : names) {
+      this.registering.computeIfPresent(name, (key, count) -> count == 1 ? null : count - 1);
+    }
+  }
+
+  @Override
+  public @NonNull Dispatcher compile() {
+    this.replace(previous -> CompiledTree.compile(this.root, previous));
     return this;
   }
 
+  // modifies the root - the published tree accounts for the modification straight away, so parses
+  // keep using it without treating the root as stale until the changed commands are compiled and published
+  private void modify(final @NonNull Runnable modification) {
+    synchronized(this.root) {
+      final int before = this.root.modifications();
+      modification.run();
+      final int after = this.root.modifications();
+      this.tree.updateAndGet(tree -> tree.rootModifications() == before ? tree.accounting(after) : tree);
+    }
+  }
+
+  // compiles the named children of the root on the calling thread, and publishes the tree
+  private void publish(final @NonNull Collection<String> names) {
+    this.replace(previous -> {
+      final int modifications;
+      final boolean stale;
+      synchronized(this.root) {
+        modifications = this.root.modifications();
+        stale = previous.rootModifications() != modifications;
+      }
+      final Collection<String> changed;
+      if(stale) {
+        // the root was also modified directly
+        changed = previous.changed(this.root);
+        changed.addAll(names);
+      } else {
+        changed = names;
+      }
+      return previous.update(this.root, changed, modifications);
+    });
+  }
+
+  // replaces the tree with one compiled from it - a thread which keeps losing the race to replace the tree
+  // compiles while holding the lock that every replacement takes, so that no other thread can replace it first
+  private void replace(final @NonNull UnaryOperator<CompiledTree> compile) {
+    for(int attempt = 0; attempt < ATTEMPTS; attempt++) {
+      final CompiledTree previous = this.tree.get();
+      if(this.compiled(previous, compile.apply(previous))) {
+        return;
+      }
+    }
+    synchronized(this.root) {
+      final CompiledTree previous = this.tree.get();
+      this.compiled(previous, compile.apply(previous));
+    }
+  }
+
+  private @NonNull CompiledTree tree() {
+    return this.tree.get();
+  }
+
+  // the tree is only replaced while holding the root's lock, so that a thread holding it is sure to replace the tree
+  private boolean compiled(final @NonNull CompiledTree previous, final @NonNull CompiledTree tree) {
+    final boolean replaced;
+    synchronized(this.root) {
+      replaced = this.tree.compareAndSet(previous, tree);
+    }
+    if(replaced && this.cache != null) {
+      this.cache.clear();
+    }
+    return replaced;
+  }
+
   @Override
   public Dispatcher.@Nullable Result parse(final @NonNull StringReader reader, final @NonNull CommandContext context) throws CommandException {
-    return this.parse(this.root, reader, context, CommandStack.builder(reader, context));
+    final @Nullable Result cached = this.cached(reader, context);
+    if(cached != null) {
+      return cached;
+    }
+    final Parse parse = this.run(reader, context, new Buffers());
+    final @Nullable ParseOutcome failure = this.failure(parse);
+    if(failure != null) {
+      throw failure.exception();
+    }
+    this.cache(parse, reader);
+    return parse.best;
   }
 
   @Override
-  public void execute(final @NonNull StringReader reader, final @NonNull CommandContext context) throws CommandException {
-    final Result result = this.parse(reader, context);
-    if(result != null) {
-      this.execute(result);
-    } else {
-      throw new DispatcherException.UnknownCommand(reader);
+  public @NonNull ParseOutcome tryParse(final @NonNull StringReader reader, final @NonNull CommandContext context) {
+    return this.tryParse(reader, context, new Buffers());
+  }
+
+  @Override
+  public @NonNull List<ParseOutcome> parseAll(final @NonNull List<String> inputs, final @NonNull List<? extends CommandContext> contexts) {
+    final int size = inputs.size();
+    if(contexts.size() != size) {
+      throw new IllegalArgumentException("Expected " + size + " contexts, got " + contexts.size());
+    }
+    // inputs are parsed grouped by their root literal, keeping the tables of each command hot - the group
+    // is packed above the input index, so sorting keeps inputs within a group in order
+    final CompiledTree tree = this.tree();
+    final long[] order = new long[size];
+    for(int i = 0; i < size; i++) {
+      final String string = inputs.get(i);
+      int end = string.indexOf(ARGUMENT_SEPARATOR);
+      if(end == -1) {
+        end = string.length();
+      }
+      order[i] = (long) (tree.literal(CompiledTree.ROOT, string, 0, end) + 1) << 32 | i;
+    }
+    Arrays.sort(order);
+    final ParseOutcome[] outcomes = new ParseOutcome[size];
+    final Buffers buffers = new Buffers();
+    for(final long packed : order) {
+      final int i = (int) packed;
+      outcomes[i] = this.tryParse(StringReader.create(inputs.get(i)), contexts.get(i), buffers);
     }
+    return Arrays.asList(outcomes);
+  }
+
+  private @NonNull ParseOutcome tryParse(final @NonNull StringReader reader, final @NonNull CommandContext context, final @NonNull Buffers buffers) {
+    final @Nullable Result cached = this.cached(reader, context);
+    if(cached != null) {
+      return ParseOutcome.success(cached, context);
+    }
+    final Parse parse = this.run(reader, context, buffers);
+    final @Nullable ParseOutcome failure = this.failure(parse);
+    if(failure != null) {
+      return failure;
+    }
+    this.cache(parse, reader);
+    final @Nullable Result result = parse.best;
+    if(result == null) {
+      return ParseOutcome.failure(ParseOutcome.Failure.UNKNOWN_COMMAND, reader.copy(), this.root, context);
+    } else if(result.reader.readable()) {
+      final ParseOutcome.Failure kind = result.stack.literalRange().isEmpty() ? ParseOutcome.Failure.UNKNOWN_COMMAND : ParseOutcome.Failure.UNKNOWN_ARGUMENT;
+      return ParseOutcome.failure(kind, result.reader, result.node, context);
+    }
+    return ParseOutcome.success(result, context);
+  }
+
+  private @Nullable Result cached(final @NonNull StringReader reader, final @NonNull CommandContext context) {
+    if(this.cache == null || reader.index() != 0) {
+      return null;
+    }
+    return this.cache.get(this.tree(), reader.asString(), Requirements.of(context, this.requirements));
+  }
+
+  // only results which consumed all input are cached
+  private void cache(final @NonNull Parse parse, final @NonNull StringReader reader) {
+    final @Nullable Result result = parse.best;
+    if(this.cache != null && parse.recording && result != null && !result.reader.readable()) {
+      this.cache.put(parse.tree, reader.asString(), Arrays.copyOf(parse.visited, parse.visitedSize), Arrays.copyOf(parse.tested, parse.testedSize), parse.context.capabilities(), result);
+    }
+  }
+
+  // a failed branch is only reported if no branch consumed all input, and the
+  // failed branch started at or after the position where the best result stopped
+  private @Nullable ParseOutcome failure(final @NonNull Parse parse) {
+    if(parse.failedStart == -1) {
+      return null;
+    }
+    final @Nullable Result best = parse.best;
+    if(best != null && (!best.reader.readable() || best.reader.index() > parse.failedStart)) {
+      return null;
+    }
+    final Node parent = parse.tree.get(parse.failedParent);
+    final StringReader reader = parse.reader.copy();
+    if(parse.failedException != null) {
+      reader.index(parse.failedException instanceof ContextualCommandException ? ((ContextualCommandException) parse.failedException).index() : parse.failedStart);
+      return ParseOutcome.failure(reader, parent, parse.context, parse.failedException);
+    } else if(parse.failedIncomplete) {
+      reader.index(parse.failedIndex);
+      return ParseOutcome.failure(ParseOutcome.Failure.INCOMPLETE_PARSE, reader, parent, parse.context);
+    } else if(parse.failedLimit != null) {
+      reader.index(parse.failedIndex);
+      return ParseOutcome.exceeded(parse.failedLimit, reader, parent, parse.context, parse.failedLimit == ParseOutcome.Failure.DEPTH_EXCEEDED ? this.maxDepth : this.maxRedirects);
+    }
+    // the branch failed without an exception - the exception is only created if it is asked for
+    reader.index(parse.failedStart);
+    final ChildNode child = parse.tree.node(parse.failedChild);
+    if(child instanceof ArgumentNode) {
+      return ParseOutcome.failure(reader, parent, parse.context, (ArgumentNode) child);
+    }
+    return ParseOutcome.failure(ParseOutcome.Failure.UNKNOWN_ARGUMENT, reader, parent, parse.context);
+  }
+
+  private @NonNull Parse run(final @NonNull StringReader reader, final @NonNull CommandContext context, final @NonNull Buffers buffers) {
+    final int start = reader.index();
+    CompiledTree tree = this.tree();
+    for(int attempt = 0; ; attempt++) {
+      // if nodes keep being modified while parsing, the last repaired tree is parsed without checking for
+      // modifications - as if the parse had finished before they were made
+      final boolean checking = attempt < ATTEMPTS;
+      final Parse parse = new Parse(tree, reader, Requirements.of(context, this.requirements), this.ambiguity, this.cache != null && start == 0 && checking, checking ? this.registering : null, buffers);
+      this.parse(parse);
+      buffers.release(parse);
+      if(!parse.stale) {
+        return parse;
+      }
+      // a node was modified directly after the tree was compiled - recompile the command it belongs to, and try again
+      reader.index(start);
+      final CompiledTree repaired = tree.repair(this.root, parse.staleNode);
+      tree = this.compiled(tree, repaired) || attempt + 1 == ATTEMPTS ? repaired : this.tree();
+    }
+  }
+
+  @Override
+  public void execute(final @NonNull StringReader reader, final @NonNull CommandContext context) throws CommandException {
+    this.execute(this.tryParse(reader, context).orThrow());
   }
 
   @Override
   public void execute(final @NonNull Result result) throws CommandException {
+    final ExecutableNode.@Nullable Executable executable = executable(result);
+    if(executable != null) {
+      executable.execute(result.stack.build());
+    }
+  }
+
+  @Override
+  public @NonNull PreparedCommand prepare(final @NonNull Result result) throws CommandException {
+    return new PreparedCommand(result.reader.asString(), result.node, executable(result), result.stack.build());
+  }
+
+  @Override
+  public @NonNull CompletableFuture<Void> executeAsync(final @NonNull Result result, final @NonNull Executor executor) {
+    final CompletableFuture<Void> future = new CompletableFuture<>();
+    try {
+      final ExecutableNode.@Nullable Executable executable = executable(result);
+      if(executable == null) {
+        future.complete(null);
+        return future;
+      }
+      final CommandStack stack = result.stack.build();
+      executor.execute(() -> {
+        try {
+          if(executable instanceof ExecutableNode.AsyncExecutable) {
+            ((ExecutableNode.AsyncExecutable) executable).executeAsync(stack).whenComplete((value, throwable) -> {
+              if(throwable != null) {
+                future.completeExceptionally(throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause() : throwable);
+              } else {
+                future.complete(null);
+              }
+            });
+          } else {
+            executable.execute(stack);
+            future.complete(null);
+          }
+        } catch(final CommandException | RuntimeException e) {
+          future.completeExceptionally(e);
+        }
+      });
+    } catch(final CommandException | RuntimeException e) {
+      // includes the executor rejecting the task
+      future.completeExceptionally(e);
+    }
+    return future;
+  }
+
+  private static ExecutableNode.@Nullable Executable executable(final @NonNull Result result) throws CommandException {
     if(result.reader.readable()) {
       if(result.stack.literalRange().isEmpty()) {
         throw new DispatcherException.UnknownCommand(result.reader);
@@ -114,19 +452,18 @@ final class DispatcherImpl implements Dispatcher {
       }
     }
     if(result.node instanceof ExecutableNode) {
-      final ExecutableNode.@Nullable Executable executable = ((ExecutableNode) result.node).executable();
-      if(executable != null) {
-        executable.execute(result.stack.build());
-      }
+      return ((ExecutableNode) result.node).executable();
     }
+    return null;
   }
 
   @Override
   public @NonNull Map<ChildNode, String> usage(final @NonNull Node node, final @NonNull CommandContext context) {
     final Map<ChildNode, String> result = new LinkedHashMap<>();
+    final Requirements requirements = Requirements.of(context, this.requirements);
     final boolean optional = node instanceof ExecutableNode && ((ExecutableNode) node).executable() != null;
     for(final ChildNode child : node.children()) {
-      final String usage = this.usage(child, context, optional, false);
+      final @Nullable String usage = this.usages.get(child, requirements, optional);
       if(usage != null) {
         result.put(child, usage);
       }
@@ -134,112 +471,592 @@ final class DispatcherImpl implements Dispatcher {
     return result;
   }
 
-  private @Nullable String usage(final ChildNode node, final CommandContext context, final boolean optional, final boolean deep) {
-    if(!node.canUse(context)) {
-      return null;
+  @Override
+  public void usage(final @NonNull Node node, final @NonNull CommandContext context, final @NonNull Appendable appendable) throws IOException {
+    final Requirements requirements = Requirements.of(context, this.requirements);
+    final boolean optional = node instanceof ExecutableNode && ((ExecutableNode) node).executable() != null;
+    for(final ChildNode child : node.children()) {
+      final @Nullable String usage = this.usages.get(child, requirements, optional);
+      if(usage != null) {
+        appendable.append(usage).append('\n');
+      }
     }
+  }
 
-    final String self = optional ? Usage.OPTIONAL_OPEN + node.usage() + Usage.OPTIONAL_CLOSE : node.usage();
+  /**
+   * Parses from the root, using an explicit stack of frames rather than recursion.
+   *
+   * <p>Each frame is a node being parsed, and moves through the phases of trying its literal child,
+   * its flags, and then its other children in turn. A child which parses and has more input after it
+   * pushes a frame; once that frame is done, the child's branch is complete and the parent rewinds.</p>
+   */
+  private void parse(final @NonNull Parse parse) {
+    parse.enter(CompiledTree.ROOT, BRANCH_PARSED, parse.literals, parse.matched, false);
+    while(parse.depth > 0) {
+      final Frame frame = parse.frames[parse.depth - 1];
+      if(this.step(parse, frame)) {
+        // the frame is done - complete the branch of its parent which pushed it
+        parse.depth--;
+        parse.literals = frame.literals;
+        parse.matched = frame.matched;
+        if(frame.redirect) {
+          parse.redirects--;
+        }
+        if(parse.depth > 0) {
+          this.complete(parse, parse.frames[parse.depth - 1], frame.branch);
+        }
+      }
+    }
+  }
 
-    if(!deep) {
-      final ChildNode redirect = node instanceof ExecutableNode ? ((ExecutableNode) node).redirect() : null;
-      if(redirect != null) {
-        return self + ARGUMENT_SEPARATOR + "-> " + redirect.usage();
-      } else {
-        final boolean childOptional = !(node instanceof ExecutableNode) || ((ExecutableNode) node).executable() != null;
-        final String open = childOptional ? Usage.OPTIONAL_OPEN : Usage.REQUIRED_OPEN;
-        final String close = childOptional ? Usage.OPTIONAL_CLOSE : Usage.REQUIRED_CLOSE;
-
-        final Collection<ChildNode> children = node.children().stream().filter(child -> child.canUse(context)).collect(Collectors.toList());
-        if(children.size() == 1) {
-          final @Nullable String usage = this.usage(children.iterator().next(), context, childOptional, childOptional);
-          if(usage != null) {
-            return self + ARGUMENT_SEPARATOR + usage;
+  /**
+   * Advances a frame until it either pushes a child frame or is done.
+   *
+   * @return {@code true} if the frame is done
+   */
+  private boolean step(final @NonNull Parse parse, final @NonNull Frame frame) {
+    final CompiledTree tree = parse.tree;
+    final int node = frame.node;
+    while(true) {
+      switch(frame.phase) {
+        case PHASE_ENTER: {
+          if(parse.modified(node)) {
+            parse.stale(node);
+            return true;
+          } else if(parse.done) {
+            return true;
           }
-        } else if(children.size() > 1) {
-          final Set<String> childUsage = new LinkedHashSet<>();
-          for(final ChildNode child : children) {
-            final String usage = this.usage(child, context, childOptional, true);
-            if(usage != null) {
-              childUsage.add(usage);
+          parse.visit(node);
+          frame.index = parse.reader.index();
+          frame.checkpoint = parse.stack.checkpoint();
+          frame.parsed = false;
+          final int literal = this.literal(parse, node);
+          if(literal != CompiledTree.NONE) {
+            frame.phase = PHASE_LITERAL;
+            if(!parse.canUse(literal)) {
+              frame.phase = PHASE_FINISH;
+              break;
             }
-          }
-          if(childUsage.size() == 1) {
-            final String usage = childUsage.iterator().next();
-            return self + ARGUMENT_SEPARATOR + (childOptional ? Usage.OPTIONAL_OPEN + usage + Usage.OPTIONAL_CLOSE : usage);
-          } else if(childUsage.size() > 1) {
-            final StringJoiner joiner = new StringJoiner(Usage.OR, self + ARGUMENT_SEPARATOR + open, close);
-            for(final ChildNode child : children) {
-              joiner.add(child.usage());
+            final int branch = this.child(parse, node, literal);
+            if(branch == BRANCH_PENDING) {
+              return false;
             }
-            if(joiner.length() > 0) {
-              return joiner.toString();
+            this.complete(parse, frame, branch);
+            break;
+          }
+          frame.next = parse.reader.readable() ? parse.reader.peek() : -1;
+          frame.phase = PHASE_FLAGS;
+          // like literals, flags take precedence over arguments which could also match the token
+          if(frame.next == FLAG_PREFIX && tree.hasFlags(node)) {
+            final int branch = this.flags(parse, node);
+            if(branch == BRANCH_PENDING) {
+              return false;
             }
+            this.complete(parse, frame, branch);
+            break;
+          }
+          frame.phase = PHASE_CANDIDATES;
+          this.candidates(parse, frame);
+          break;
+        }
+        case PHASE_CANDIDATES: {
+          if(frame.position == frame.candidates.length || parse.stale || parse.done) {
+            frame.phase = PHASE_FINISH;
+            break;
+          }
+          final int child = frame.offset + frame.candidates[frame.position++];
+          if(!parse.canUse(child)) {
+            break;
+          }
+          final int branch = this.child(parse, node, child);
+          if(branch == BRANCH_PENDING) {
+            return false;
+          }
+          this.complete(parse, frame, branch);
+          break;
+        }
+        default: {
+          if(!frame.parsed && node != CompiledTree.ROOT && !parse.stale && !parse.done) {
+            parse.offer(tree.node(node));
           }
+          return true;
         }
       }
     }
-
-    return self;
   }
 
-  private @Nullable Result parse(final @NonNull Node node, final @NonNull StringReader reader, final @NonNull CommandContext context, final CommandStack.@NonNull Builder stack) throws CommandException {
-    final List<Result> results = new ArrayList<>(1);
-    for(final ChildNode child : node.relevantChildren(reader)) {
-      if(!child.canUse(context)) {
-        continue;
-      }
-      if(this.parse0(results, node, child, reader.copy(), context, stack.copy())) {
+  // starts trying the candidates of a frame, unless its flags were parsed
+  private void candidates(final @NonNull Parse parse, final @NonNull Frame frame) {
+    frame.position = 0;
+    if(frame.parsed) {
+      frame.candidates = EMPTY;
+      return;
+    }
+    // arguments skipped by lookahead are still reported, as if they had been tried first
+    frame.offset = parse.tree.offset(frame.node);
+    for(final int child : parse.tree.rejected(frame.node, frame.next)) {
+      if(parse.canUse(frame.offset + child)) {
+        parse.fail(frame.node, frame.offset + child, frame.index, null);
         break;
       }
     }
-    final int size = results.size();
-    if(size > 0) {
-      if(size > 1) {
-        results.sort(COMPARATOR);
-      }
-      return results.get(0);
+    frame.candidates = parse.tree.candidates(frame.node, frame.next);
+  }
+
+  // a branch of a frame is complete - rewind, and move on to the next phase
+  private void complete(final @NonNull Parse parse, final @NonNull Frame frame, final int branch) {
+    parse.rewind(frame.index, frame.checkpoint);
+    switch(frame.phase) {
+      case PHASE_LITERAL:
+        frame.parsed = branch != BRANCH_FAILED;
+        frame.phase = PHASE_FINISH;
+        break;
+      case PHASE_FLAGS:
+        frame.parsed = branch != BRANCH_FAILED;
+        frame.phase = PHASE_CANDIDATES;
+        this.candidates(parse, frame);
+        break;
+      default:
+        if(branch == BRANCH_REDIRECTED) {
+          frame.parsed = true;
+          frame.phase = PHASE_FINISH;
+        } else if(branch == BRANCH_PARSED) {
+          frame.parsed = true;
+        }
+        break;
     }
-    return node instanceof ChildNode ? new Result(reader, stack, (ChildNode) node) : null;
   }
 
-  private boolean parse0(final List<Result> results, final @NonNull Node parent, final @NonNull ChildNode child, final @NonNull StringReader reader, final @NonNull CommandContext context, final CommandStack.@NonNull Builder stack) throws CommandException {
-    child.parse(stack, context, reader);
+  private int literal(final @NonNull Parse parse, final int node) {
+    if(!parse.tree.hasLiterals(node)) {
+      return CompiledTree.NONE;
+    }
+    final int start = parse.reader.index();
+    return parse.tree.literal(node, parse.reader.asString(), start, parse.end(start));
+  }
 
-    if(reader.readable()) {
-      if(reader.peek() != ARGUMENT_SEPARATOR) {
-        throw new DispatcherException.IncompleteParse(reader);
-      } else {
-        reader.skip();
-        if(this.redirect(results, child, reader, context, stack)) {
-          return true;
-        }
-        results.add(this.parse(child, reader, context, stack));
+  /**
+   * Parses a flag token, in which each character after a single dash is a short flag and
+   * anything after a double dash is a long flag.
+   *
+   * <p>Flags act on the node they belong to: once the token is parsed, parsing continues from
+   * that node, unless the token is a single flag which has children of its own.</p>
+   */
+  private int flags(final @NonNull Parse parse, final int parent) {
+    final CompiledTree tree = parse.tree;
+    final StringReader reader = parse.reader;
+    final String string = reader.asString();
+    final int start = reader.index();
+    final int end = parse.end(start);
+    final StringRange range = StringRange.between(start, end);
+    int last = CompiledTree.NONE;
+    boolean combined = false;
+    if(start + 1 < end && string.charAt(start + 1) == FLAG_PREFIX) {
+      last = tree.flag(parent, string, start + 2, end);
+      if(last == CompiledTree.NONE || !parse.canUse(last)) {
+        return BRANCH_FAILED;
       }
+      parse.stack.flag(range, ((FlagNode) tree.node(last)).flag());
     } else {
-      if(this.redirect(results, child, reader, context, stack)) {
-        return true;
+      for(int i = start + 1; i < end; i++) {
+        final int child = tree.flag(parent, string, i);
+        if(child == CompiledTree.NONE || !parse.canUse(child)) {
+          return BRANCH_FAILED;
+        }
+        parse.stack.flag(range, string.charAt(i));
+        combined = last != CompiledTree.NONE;
+        last = child;
       }
-      if(parent instanceof ChildNode && child instanceof FlagNode) {
-        results.add(new Result(reader, stack, (ChildNode) parent));
-      } else {
-        results.add(new Result(reader, stack, child));
+      if(last == CompiledTree.NONE) {
+        return BRANCH_FAILED;
+      }
+    }
+    final int next = !combined && tree.hasChildren(last) ? last : parent;
+    reader.skip(end - start);
+    if(reader.readable()) {
+      reader.skip();
+    }
+    final int redirect = combined ? CompiledTree.NONE : tree.redirect(last);
+    if(redirect == CompiledTree.STALE) {
+      parse.stale(last);
+      return BRANCH_FAILED;
+    }
+    // a token of flags is matched as one node, however many flags it combines
+    final int matched = parse.matched;
+    parse.matched = matched + 1;
+    if(redirect != CompiledTree.NONE) {
+      return this.push(parse, parent, last, start, redirect, BRANCH_REDIRECTED, parse.literals, matched, true);
+    } else if(reader.index() != end) {
+      return this.push(parse, parent, last, start, next, BRANCH_PARSED, parse.literals, matched, false);
+    }
+    parse.offer(tree.node(next != CompiledTree.ROOT ? next : last));
+    parse.matched = matched;
+    return BRANCH_PARSED;
+  }
+
+  /**
+   * Parses a child of {@code parent}.
+   *
+   * @return the branch result, or {@link #BRANCH_PENDING} if a frame was pushed to parse what follows
+   */
+  private int child(final @NonNull Parse parse, final int parent, final int child) {
+    final CompiledTree tree = parse.tree;
+    final StringReader reader = parse.reader;
+    final ChildNode node = tree.node(child);
+    final int start = reader.index();
+    try {
+      if(!node.parse(parse.stack, parse.context, reader)) {
+        if(node instanceof ArgumentNode) {
+          parse.fail(parent, child, start, null);
+        }
+        return BRANCH_FAILED;
       }
+    } catch(final CommandException e) {
+      parse.fail(parent, child, start, e);
+      return BRANCH_FAILED;
     }
-    return false;
+
+    final int literals = parse.literals;
+    final int matched = parse.matched;
+    final boolean separated = reader.readable();
+    if(separated) {
+      if(reader.peek() != ARGUMENT_SEPARATOR) {
+        parse.incomplete(parent, child, start, reader.index());
+        return BRANCH_FAILED;
+      }
+      reader.skip();
+    }
+    parse.literals = node instanceof LiteralNode ? literals + 1 : literals;
+    parse.matched = matched + 1;
+    final int redirect = tree.redirect(child);
+    if(redirect == CompiledTree.STALE) {
+      parse.literals = literals;
+      parse.matched = matched;
+      parse.stale(child);
+      return BRANCH_FAILED;
+    } else if(redirect != CompiledTree.NONE) {
+      return this.push(parse, parent, child, start, redirect, BRANCH_REDIRECTED, literals, matched, true);
+    } else if(separated) {
+      return this.push(parse, parent, child, start, child, BRANCH_PARSED, literals, matched, false);
+    }
+    parse.offer(node);
+    parse.literals = literals;
+    parse.matched = matched;
+    return BRANCH_PARSED;
   }
 
-  private boolean redirect(final List<Result> results, final @NonNull ChildNode child, final @NonNull StringReader reader, final @NonNull CommandContext context, final CommandStack.@NonNull Builder stack) throws CommandException {
-    final @Nullable ChildNode redirect = child instanceof ExecutableNode ? ((ExecutableNode) child).redirect() : null;
-    if(redirect != null) {
-      results.add(this.parse(redirect, reader, context, stack));
-      return true;
+  // pushes a frame to parse from node, failing the branch if a limit would be exceeded
+  private int push(final @NonNull Parse parse, final int parent, final int child, final int start, final int node, final int branch, final int literals, final int matched, final boolean redirect) {
+    if(parse.depth >= this.maxDepth) {
+      parse.literals = literals;
+      parse.matched = matched;
+      parse.exceeded(parent, child, start, ParseOutcome.Failure.DEPTH_EXCEEDED);
+      return BRANCH_FAILED;
+    } else if(redirect && parse.redirects >= this.maxRedirects) {
+      parse.literals = literals;
+      parse.matched = matched;
+      parse.exceeded(parent, child, start, ParseOutcome.Failure.REDIRECTS_EXCEEDED);
+      return BRANCH_FAILED;
     }
-    return false;
+    parse.enter(node, branch, literals, matched, redirect);
+    return BRANCH_PENDING;
   }
 
   @Override
   public @NonNull Stream<? extends ExaminableProperty> examinableProperties() {
     return Stream.of(ExaminableProperty.of("root", this.root));
   }
+
+  /**
+   * The state of a single parse.
+   *
+   * <p>A single reader and stack builder are shared by every branch: each branch rewinds the reader and
+   * rolls the stack back to a checkpoint when it is done, and state is only copied into a {@link Result}
+   * when a branch produces a better result than any seen so far.</p>
+   */
+  private static final class Parse {
+    final CompiledTree tree;
+    final StringReader reader;
+    final CommandContext context;
+    final CommandStack.Builder stack;
+    final Tokens tokens;
+    final Requirements requirements;
+    final Ambiguity ambiguity;
+    // when caching, the nodes visited and the requirements tested
+    final boolean recording;
+    // the commands being registered, or null if nodes are not checked for modifications
+    final @Nullable Map<String, Integer> registering;
+    int[] visited;
+    int visitedSize;
+    int[] tested;
+    int testedSize;
+    @Nullable Result best;
+    int bestMatched;
+    int bestLiterals;
+    // the number of nodes and of literals matched on the current branch
+    int matched;
+    int literals;
+    // the frames of the nodes being parsed, and the number of redirects among them
+    Frame[] frames;
+    int depth;
+    int redirects;
+    // a node which was modified after the tree was compiled, or which redirects to a node no longer in the tree
+    boolean stale;
+    int staleNode;
+    // a result was chosen, and no further branches need to be parsed
+    boolean done;
+    // the failed branch which started furthest into the input
+    int failedStart = -1;
+    int failedParent;
+    int failedChild;
+    int failedIndex;
+    boolean failedIncomplete;
+    ParseOutcome.@Nullable Failure failedLimit;
+    @Nullable CommandException failedException;
+
+    Parse(final CompiledTree tree, final StringReader reader, final Requirements requirements, final Ambiguity ambiguity, final boolean recording, final @Nullable Map<String, Integer> registering, final Buffers buffers) {
+      this.tree = tree;
+      this.reader = reader.copy();
+      this.context = requirements.context();
+      this.requirements = requirements;
+      this.stack = CommandStack.builder(reader, this.context);
+      // tokens are only found as literals and flags are looked up, so a parse which fails at the first token scans no further
+      this.tokens = Tokens.of(reader.asString(), ARGUMENT_SEPARATOR, buffers.tokens);
+      this.ambiguity = ambiguity;
+      this.recording = recording;
+      this.registering = registering;
+      this.frames = buffers.frames;
+      this.visited = recording ? buffers.visited : EMPTY;
+      this.tested = recording ? buffers.tested : EMPTY;
+    }
+
+    // whether a node was modified after the tree was compiled - while a command is being registered, the
+    // published tree is used even if its nodes have been modified, as the registration publishes a tree which includes them
+    boolean modified(final int node) {
+      final @Nullable Map<String, Integer> registering = this.registering;
+      if(registering == null || !this.tree.stale(node)) {
+        return false;
+      }
+      final @Nullable String command = registering.isEmpty() ? null : this.tree.command(node);
+      return command == null || !registering.containsKey(command);
+    }
+
+    // the end of the token starting at start - a token which is not found, such as when an argument ended
+    // inside one, or a quoted token, is matched against up to the next separator
+    int end(final int start) {
+      final int token = this.tokens.at(start);
+      if(token != Tokens.NONE && !this.tokens.quoted(token)) {
+        return this.tokens.end(token);
+      }
+      final String string = this.reader.asString();
+      final int end = string.indexOf(ARGUMENT_SEPARATOR, start);
+      return end != -1 ? end : string.length();
+    }
+
+    void visit(final int node) {
+      if(this.recording) {
+        if(this.visitedSize == this.visited.length) {
+          this.visited = Arrays.copyOf(this.visited, this.visitedSize * 2);
+        }
+        this.visited[this.visitedSize++] = node;
+      }
+    }
+
+    boolean canUse(final int node) {
+      final @Nullable Capabilities required = this.tree.capabilities(node);
+      final boolean canUse = required != null ? this.context.capabilities().containsAll(required) : this.requirements.canUse(this.tree.node(node));
+      if(this.recording) {
+        if(this.testedSize == this.tested.length) {
+          this.tested = Arrays.copyOf(this.tested, this.testedSize * 2);
+        }
+        this.tested[this.testedSize++] = node << 1 | (canUse ? 1 : 0);
+      }
+      return canUse;
+    }
+
+    void enter(final int node, final int branch, final int literals, final int matched, final boolean redirect) {
+      if(this.depth == this.frames.length) {
+        this.frames = Arrays.copyOf(this.frames, this.depth * 2);
+      }
+      @Nullable Frame frame = this.frames[this.depth];
+      if(frame == null) {
+        frame = this.frames[this.depth] = new Frame();
+      }
+      this.depth++;
+      frame.node = node;
+      frame.phase = PHASE_ENTER;
+      frame.branch = branch;
+      frame.literals = literals;
+      frame.matched = matched;
+      frame.redirect = redirect;
+      if(redirect) {
+        this.redirects++;
+      }
+    }
+
+    // when nodes are not checked for modifications, the branch only fails
+    void stale(final int node) {
+      if(this.registering != null) {
+        this.stale = true;
+        this.staleNode = node;
+      }
+    }
+
+    void rewind(final int index, final int checkpoint) {
+      this.reader.index(index);
+      this.stack.rollback(checkpoint);
+    }
+
+    void fail(final int parent, final int child, final int start, final @Nullable CommandException exception) {
+      if(start > this.failedStart) {
+        this.failedStart = start;
+        this.failedParent = parent;
+        this.failedChild = child;
+        this.failedIncomplete = false;
+        this.failedLimit = null;
+        this.failedException = exception;
+      }
+    }
+
+    void exceeded(final int parent, final int child, final int start, final ParseOutcome.@NonNull Failure limit) {
+      if(start > this.failedStart) {
+        this.fail(parent, child, start, null);
+        this.failedLimit = limit;
+        this.failedIndex = this.reader.index();
+      }
+    }
+
+    void incomplete(final int parent, final int child, final int start, final int index) {
+      if(start > this.failedStart) {
+        this.fail(parent, child, start, null);
+        this.failedIncomplete = true;
+        this.failedIndex = index;
+      }
+    }
+
+    void offer(final @NonNull ChildNode node) {
+      final boolean complete = !this.reader.readable();
+      final @Nullable Result best = this.best;
+      if(best == null || this.better(best, complete)) {
+        this.best = new Result(this.reader.copy(), this.stack.copy(), node);
+        this.bestMatched = this.matched;
+        this.bestLiterals = this.literals;
+        this.done = complete && this.ambiguity == Ambiguity.FIRST;
+      }
+    }
+
+    // see Dispatcher.Ambiguity
+    private boolean better(final @NonNull Result best, final boolean complete) {
+      if(best.reader.readable()) {
+        return complete || this.reader.index() > best.reader.index();
+      } else if(!complete) {
+        return false;
+      }
+      switch(this.ambiguity) {
+        case LONGEST: return this.matched > this.bestMatched;
+        case PRIORITY: return this.literals > this.bestLiterals || (this.literals == this.bestLiterals && this.matched > this.bestMatched);
+        default: return false;
+      }
+    }
+  }
+
+  /**
+   * Storage which is reused by consecutive parses, such as the inputs of a batch.
+   */
+  private static final class Buffers {
+    Frame[] frames = new Frame[8];
+    int[] visited = new int[8];
+    int[] tested = new int[8];
+    @Nullable Tokens tokens;
+
+    // takes back the storage of a finished parse, which may have grown it
+    void release(final @NonNull Parse parse) {
+      this.frames = parse.frames;
+      if(parse.recording) {
+        this.visited = parse.visited;
+        this.tested = parse.tested;
+      }
+      this.tokens = parse.tokens;
+    }
+  }
+
+  /**
+   * A node being parsed.
+   */
+  private static final class Frame {
+    int node;
+    int phase;
+    // the reader index and stack checkpoint when the node was entered
+    int index;
+    int checkpoint;
+    boolean parsed;
+    // the next character, and the candidates being tried with the offset added to them
+    int next;
+    int[] candidates = EMPTY;
+    int offset;
+    int position;
+    // the branch result reported to the parent frame, and the state restored when this frame is done
+    int branch;
+    int literals;
+    int matched;
+    boolean redirect;
+  }
+
+  static final class Builder implements Dispatcher.Builder {
+    private long cacheSize;
+    private long requirementTtl;
+    private Ambiguity ambiguity = Ambiguity.FIRST;
+    private int maxDepth = DEFAULT_MAX_DEPTH;
+    private int maxRedirects = DEFAULT_MAX_REDIRECTS;
+
+    Builder() {
+    }
+
+    @Override
+    public @NonNull Builder cache(final long maximumSize) {
+      if(maximumSize < 0) {
+        throw new IllegalArgumentException("maximumSize must not be negative");
+      }
+      this.cacheSize = maximumSize;
+      return this;
+    }
+
+    @Override
+    public @NonNull Builder requirementCache(final long duration, final @NonNull TimeUnit unit) {
+      if(duration < 0) {
+        throw new IllegalArgumentException("duration must not be negative");
+      }
+      this.requirementTtl = unit.toNanos(duration);
+      return this;
+    }
+
+    @Override
+    public @NonNull Builder ambiguity(final @NonNull Ambiguity ambiguity) {
+      this.ambiguity = ambiguity;
+      return this;
+    }
+
+    @Override
+    public @NonNull Builder maxDepth(final int maxDepth) {
+      if(maxDepth < 1) {
+        throw new IllegalArgumentException("maxDepth must be positive");
+      }
+      this.maxDepth = maxDepth;
+      return this;
+    }
+
+    @Override
+    public @NonNull Builder maxRedirects(final int maxRedirects) {
+      if(maxRedirects < 0) {
+        throw new IllegalArgumentException("maxRedirects must not be negative");
+      }
+      this.maxRedirects = maxRedirects;
+      return this;
+    }
+
+    @Override
+    public @NonNull Dispatcher build() {
+      return new DispatcherImpl(this);
+    }
+  }
 }
@@ -0,0 +1,133 @@
+/*
+ * This file is part of kata, licensed under the MIT License.
+ *
+ * Copyright (c) 2018 KyoriPowered
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.kyori.kata.dispatcher;
+
+import com.google.common.primitives.Ints;
+import net.kyori.kata.node.FlagNode;
+import net.kyori.kata.util.LiteralTable;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * An immutable table mapping the flags of a node to indices.
+ *
+ * <p>Short flags below {@link CompiledTree#LOOKAHEAD} are found by indexing an array, so each character
+ * of a combined flag such as {@code -abc} is resolved without hashing.</p>
+ */
+final class FlagTable {
+  static final int ABSENT = LiteralTable.ABSENT;
+  static final FlagTable EMPTY = new FlagTable(null, LiteralTable.empty(), LiteralTable.empty());
+  // null when there are no ASCII short flags
+  private final int @Nullable [] ascii;
+  private final LiteralTable other;
+  private final LiteralTable names;
+
+  private FlagTable(final int @Nullable [] ascii, final LiteralTable other, final LiteralTable names) {
+    this.ascii = ascii;
+    this.other = other;
+    this.names = names;
+  }
+
+  /**
+   * Creates a flag table.
+   *
+   * <p>If a flag appears more than once, the first index is kept.</p>
+   *
+   * @param flags the flags
+   * @param indices the index of each flag
+   * @return a flag table
+   */
+  static @NonNull FlagTable of(final @NonNull List<FlagNode> flags, final @NonNull List<Integer> indices) {
+    if(flags.isEmpty()) {
+      return EMPTY;
+    }
+    int @Nullable [] ascii = null;
+    final List<String> other = new ArrayList<>();
+    final List<Integer> otherIndices = new ArrayList<>();
+    final List<String> names = new ArrayList<>();
+    final List<Integer> nameIndices = new ArrayList<>();
+    for(int i = 0; i < flags.size(); i++) {
+      final FlagNode flag = flags.get(i);
+      if(flag.isLong()) {
+        names.add(flag.flag());
+        nameIndices.add(indices.get(i));
+      } else {
+        final char character = flag.flag().charAt(0);
+        if(character < CompiledTree.LOOKAHEAD) {
+          if(ascii == null) {
+            ascii = new int[CompiledTree.LOOKAHEAD];
+            Arrays.fill(ascii, ABSENT);
+          }
+          if(ascii[character] == ABSENT) {
+            ascii[character] = indices.get(i);
+          }
+        } else {
+          other.add(flag.flag());
+          otherIndices.add(indices.get(i));
+        }
+      }
+    }
+    return new FlagTable(ascii, LiteralTable.of(other.toArray(new String[0]), Ints.toArray(otherIndices)), LiteralTable.of(names.toArray(new String[0]), Ints.toArray(nameIndices)));
+  }
+
+  /**
+   * Checks if this table is empty.
+   *
+   * @return {@code true} if this table is empty
+   */
+  boolean isEmpty() {
+    return this == EMPTY;
+  }
+
+  /**
+   * Gets the index of the short flag at {@code index} in {@code string}.
+   *
+   * @param string the string
+   * @param index the index of the flag character
+   * @return the index, or {@link #ABSENT}
+   */
+  int get(final @NonNull String string, final int index) {
+    final char character = string.charAt(index);
+    if(character < CompiledTree.LOOKAHEAD) {
+      return this.ascii != null ? this.ascii[character] : ABSENT;
+    }
+    return this.other.get(string, index, index + 1);
+  }
+
+  /**
+   * Gets the index of the long flag between {@code start} and {@code end} in {@code string}.
+   *
+   * @param string the string
+   * @param start the start index, inclusive
+   * @param end the end index, exclusive
+   * @return the index, or {@link #ABSENT}
+   */
+  int get(final @NonNull String string, final int start, final int end) {
+    return this.names.get(string, start, end);
+  }
+}
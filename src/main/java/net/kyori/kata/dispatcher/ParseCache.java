@@ -0,0 +1,167 @@
+/*
+ * This file is part of kata, licensed under the MIT License.
+ *
+ * Copyright (c) 2018 KyoriPowered
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.kyori.kata.dispatcher;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import net.kyori.kata.requirement.Capabilities;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * A bounded cache of successful parse results, keyed by input.
+ *
+ * <p>Each entry records the nodes which were visited while parsing, and the outcome of every requirement
+ * which was tested. An entry is only used when none of those nodes have been modified and every
+ * requirement has the same outcome for the new context, so the result is the one a fresh parse would
+ * produce - provided that argument types parse the same input to the same value regardless of context.</p>
+ *
+ * <p>A hit therefore still checks the modification count of every visited node, and re-tests every
+ * requirement which is not {@link net.kyori.kata.requirement.Requirement capability-based} - it saves
+ * the argument parsing and branching, not the walk along the path. Capability-based requirements are
+ * validated together, by comparing the capabilities of the context with those of the context the entry
+ * was cached for, and are only tested one by one when those differ.</p>
+ *
+ * <p>A few entries are kept per input, so that contexts which pass different requirements do not evict
+ * each other.</p>
+ */
+final class ParseCache {
+  private static final int VARIANTS = 4;
+  private final Cache<String, Entry[]> entries;
+
+  ParseCache(final long maximumSize) {
+    this.entries = CacheBuilder.newBuilder()
+      .maximumSize(maximumSize)
+      .build();
+  }
+
+  /**
+   * Gets a cached result.
+   *
+   * @param tree the compiled tree
+   * @param input the input
+   * @param requirements the requirements of the context
+   * @return the result, or {@code null}
+   */
+  Dispatcher.@Nullable Result get(final @NonNull CompiledTree tree, final @NonNull String input, final @NonNull Requirements requirements) {
+    final Entry @Nullable [] entries = this.entries.getIfPresent(input);
+    if(entries != null) {
+      for(final Entry entry : entries) {
+        if(entry.valid(tree, requirements)) {
+          final Dispatcher.Result result = entry.result;
+          return new Dispatcher.Result(result.reader.copy(), result.stack.copy(requirements.context()), result.node);
+        }
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Caches a result.
+   *
+   * @param tree the compiled tree
+   * @param input the input
+   * @param visited the visited nodes
+   * @param tested the tested requirements, as {@code node << 1 | outcome}
+   * @param capabilities the capabilities of the context
+   * @param result the result
+   */
+  void put(final @NonNull CompiledTree tree, final @NonNull String input, final int[] visited, final int[] tested, final @NonNull Capabilities capabilities, final Dispatcher.@NonNull Result result) {
+    // requirements which are tested by comparing capabilities are kept apart from those which must be tested again
+    final int[] requirements = new int[tested.length];
+    int size = 0;
+    int compiled = tested.length;
+    for(final int requirement : tested) {
+      if(tree.capabilities(requirement >>> 1) != null) {
+        requirements[--compiled] = requirement;
+      } else {
+        requirements[size++] = requirement;
+      }
+    }
+    final Entry entry = new Entry(tree, visited, Arrays.copyOf(requirements, size), Arrays.copyOfRange(requirements, compiled, tested.length), capabilities, new Dispatcher.Result(result.reader.copy(), result.stack.copy(), result.node));
+    this.entries.asMap().compute(input, (key, existing) -> {
+      if(existing == null) {
+        return new Entry[]{entry};
+      }
+      final Entry[] entries = new Entry[Math.min(existing.length + 1, VARIANTS)];
+      entries[0] = entry;
+      System.arraycopy(existing, 0, entries, 1, entries.length - 1);
+      return entries;
+    });
+  }
+
+  /**
+   * Removes all cached results.
+   */
+  void clear() {
+    this.entries.invalidateAll();
+  }
+
+  private static final class Entry {
+    final CompiledTree tree;
+    final int[] visited;
+    // the requirements which are tested again, and those which are compared as capabilities
+    final int[] requirements;
+    final int[] compiled;
+    final Capabilities capabilities;
+    final Dispatcher.Result result;
+
+    Entry(final CompiledTree tree, final int[] visited, final int[] requirements, final int[] compiled, final Capabilities capabilities, final Dispatcher.Result result) {
+      this.tree = tree;
+      this.visited = visited;
+      this.requirements = requirements;
+      this.compiled = compiled;
+      this.capabilities = capabilities;
+      this.result = result;
+    }
+
+    boolean valid(final CompiledTree tree, final Requirements requirements) {
+      if(tree != this.tree) {
+        return false;
+      }
+      for(final int node : this.visited) {
+        if(tree.stale(node)) {
+          return false;
+        }
+      }
+      for(final int requirement : this.requirements) {
+        if(requirements.canUse(tree.node(requirement >>> 1)) != ((requirement & 1) == 1)) {
+          return false;
+        }
+      }
+      final Capabilities capabilities = requirements.context().capabilities();
+      if(this.compiled.length > 0 && !capabilities.equals(this.capabilities)) {
+        for(final int requirement : this.compiled) {
+          final @Nullable Capabilities required = tree.capabilities(requirement >>> 1);
+          if(required == null || capabilities.containsAll(required) != ((requirement & 1) == 1)) {
+            return false;
+          }
+        }
+      }
+      return true;
+    }
+  }
+}
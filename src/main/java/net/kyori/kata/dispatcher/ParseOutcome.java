@@ -0,0 +1,231 @@
+/*
+ * This file is part of kata, licensed under the MIT License.
+ *
+ * Copyright (c) 2018 KyoriPowered
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.kyori.kata.dispatcher;
+
+import net.kyori.kata.context.CommandContext;
+import net.kyori.kata.exception.CommandException;
+import net.kyori.kata.node.ArgumentNode;
+import net.kyori.kata.node.ChildNode;
+import net.kyori.kata.node.Node;
+import net.kyori.lambda.examine.Examinable;
+import net.kyori.lambda.examine.ExaminableProperty;
+import net.kyori.string.StringReader;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * The outcome of {@link Dispatcher#tryParse(StringReader, CommandContext) parsing} a command.
+ *
+ * <p>A successful outcome holds a {@link Dispatcher.Result result} that has consumed all input and is ready to be
+ * {@link Dispatcher#execute(Dispatcher.Result) executed}. A failed outcome describes why parsing failed without
+ * throwing - an exception is only created if {@link #exception()} is called.</p>
+ */
+public final class ParseOutcome implements Examinable {
+  private final Dispatcher.@Nullable Result result;
+  private final @Nullable Failure failure;
+  private final StringReader reader;
+  private final @Nullable Node node;
+  private final CommandContext context;
+  private final @Nullable CommandException exception;
+  // the argument which could not be parsed at the position, when its exception has not been created
+  private final @Nullable ArgumentNode argument;
+  // the limit which was exceeded
+  private final int limit;
+
+  private ParseOutcome(final Dispatcher.@Nullable Result result, final @Nullable Failure failure, final StringReader reader, final @Nullable Node node, final CommandContext context, final @Nullable CommandException exception, final @Nullable ArgumentNode argument, final int limit) {
+    this.result = result;
+    this.failure = failure;
+    this.reader = reader;
+    this.node = node;
+    this.context = context;
+    this.exception = exception;
+    this.argument = argument;
+    this.limit = limit;
+  }
+
+  static @NonNull ParseOutcome success(final Dispatcher.@NonNull Result result, final @NonNull CommandContext context) {
+    return new ParseOutcome(result, null, result.reader, result.node, context, null, null, 0);
+  }
+
+  static @NonNull ParseOutcome failure(final @NonNull Failure failure, final @NonNull StringReader reader, final @Nullable Node node, final @NonNull CommandContext context) {
+    return new ParseOutcome(null, failure, reader, node, context, null, null, 0);
+  }
+
+  static @NonNull ParseOutcome failure(final @NonNull StringReader reader, final @Nullable Node node, final @NonNull CommandContext context, final @NonNull CommandException exception) {
+    return new ParseOutcome(null, Failure.INVALID_ARGUMENT, reader, node, context, exception, null, 0);
+  }
+
+  static @NonNull ParseOutcome exceeded(final @NonNull Failure failure, final @NonNull StringReader reader, final @Nullable Node node, final @NonNull CommandContext context, final int limit) {
+    return new ParseOutcome(null, failure, reader, node, context, null, null, limit);
+  }
+
+  static @NonNull ParseOutcome failure(final @NonNull StringReader reader, final @Nullable Node node, final @NonNull CommandContext context, final @NonNull ArgumentNode argument) {
+    return new ParseOutcome(null, Failure.INVALID_ARGUMENT, reader, node, context, null, argument, 0);
+  }
+
+  /**
+   * Checks if parsing was successful.
+   *
+   * @return {@code true} if parsing was successful
+   */
+  public boolean successful() {
+    return this.result != null;
+  }
+
+  /**
+   * Gets the result.
+   *
+   * @return the result, or {@code null} if parsing failed
+   */
+  public Dispatcher.@Nullable Result result() {
+    return this.result;
+  }
+
+  /**
+   * Gets the failure.
+   *
+   * @return the failure, or {@code null} if parsing was successful
+   */
+  public @Nullable Failure failure() {
+    return this.failure;
+  }
+
+  /**
+   * Gets the position in the input where parsing stopped.
+   *
+   * @return the position
+   */
+  public int position() {
+    return this.reader.index();
+  }
+
+  /**
+   * Gets the nodes that would have been accepted at {@link #position()}.
+   *
+   * @return the expected nodes
+   */
+  public @NonNull List<ChildNode> expected() {
+    if(this.node == null) {
+      return Collections.emptyList();
+    }
+    final List<ChildNode> expected = new ArrayList<>();
+    for(final ChildNode child : this.node.children()) {
+      if(child.canUse(this.context)) {
+        expected.add(child);
+      }
+    }
+    return expected;
+  }
+
+  /**
+   * Creates an exception describing the failure.
+   *
+   * @return the exception
+   * @throws IllegalStateException if parsing was successful
+   */
+  public @NonNull CommandException exception() {
+    if(this.failure == null) {
+      throw new IllegalStateException("Parsing was successful");
+    }
+    switch(this.failure) {
+      case UNKNOWN_COMMAND: return new DispatcherException.UnknownCommand(this.reader);
+      case UNKNOWN_ARGUMENT: return new DispatcherException.UnknownArgument(this.reader);
+      case INCOMPLETE_PARSE: return new DispatcherException.IncompleteParse(this.reader);
+      case DEPTH_EXCEEDED: return new DispatcherException.DepthExceeded(this.reader, this.limit);
+      case REDIRECTS_EXCEEDED: return new DispatcherException.RedirectsExceeded(this.reader, this.limit);
+      default:
+        if(this.exception != null) {
+          return this.exception;
+        }
+        return this.argument != null ? this.argumentException(this.argument) : new DispatcherException.UnknownArgument(this.reader);
+    }
+  }
+
+  // parses the argument again, which throws the exception describing why it could not be parsed
+  private @NonNull CommandException argumentException(final @NonNull ArgumentNode argument) {
+    try {
+      argument.argument().type().parse(this.context, this.reader.copy());
+    } catch(final CommandException e) {
+      return e;
+    }
+    return new DispatcherException.UnknownArgument(this.reader);
+  }
+
+  /**
+   * Gets the result, or throws an exception describing the failure.
+   *
+   * @return the result
+   * @throws CommandException if parsing failed
+   */
+  public Dispatcher.@NonNull Result orThrow() throws CommandException {
+    if(this.result == null) {
+      throw this.exception();
+    }
+    return this.result;
+  }
+
+  @Override
+  public @NonNull Stream<? extends ExaminableProperty> examinableProperties() {
+    return Stream.of(
+      ExaminableProperty.of("failure", this.failure),
+      ExaminableProperty.of("position", this.position()),
+      ExaminableProperty.of("node", this.node)
+    );
+  }
+
+  /**
+   * A parse failure.
+   */
+  public enum Failure {
+    /**
+     * No command matched the input.
+     */
+    UNKNOWN_COMMAND,
+    /**
+     * A command matched, but some of the input was not consumed.
+     */
+    UNKNOWN_ARGUMENT,
+    /**
+     * A node stopped parsing part-way through an argument.
+     */
+    INCOMPLETE_PARSE,
+    /**
+     * An argument could not be parsed.
+     */
+    INVALID_ARGUMENT,
+    /**
+     * A branch would have exceeded the {@link Dispatcher.Builder#maxDepth(int) maximum parse depth}.
+     */
+    DEPTH_EXCEEDED,
+    /**
+     * A branch would have followed more than the {@link Dispatcher.Builder#maxRedirects(int) maximum number of redirects}.
+     */
+    REDIRECTS_EXCEEDED
+  }
+}
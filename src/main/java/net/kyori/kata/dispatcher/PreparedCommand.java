@@ -0,0 +1,107 @@
+/*
+ * This file is part of kata, licensed under the MIT License.
+ *
+ * Copyright (c) 2018 KyoriPowered
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.kyori.kata.dispatcher;
+
+import net.kyori.kata.context.CommandStack;
+import net.kyori.kata.exception.CommandException;
+import net.kyori.kata.node.ChildNode;
+import net.kyori.kata.node.ExecutableNode;
+import net.kyori.lambda.examine.Examinable;
+import net.kyori.lambda.examine.ExaminableProperty;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.stream.Stream;
+
+/**
+ * A parsed command which is ready to be executed.
+ *
+ * <p>Unlike a {@link Dispatcher.Result result}, which holds the reader and stack builder used while parsing, a
+ * prepared command is immutable: a command can be {@link Dispatcher#prepare(Dispatcher.Result) prepared} on
+ * one thread - such as a network thread - and queued to be {@link #execute() executed} later on another.</p>
+ *
+ * <p>The executable is captured when the command is prepared, so unregistering or modifying the node afterwards
+ * does not affect a command which has already been prepared.</p>
+ */
+public final class PreparedCommand implements Examinable {
+  private final String input;
+  private final ChildNode node;
+  private final ExecutableNode.@Nullable Executable executable;
+  private final CommandStack stack;
+
+  PreparedCommand(final @NonNull String input, final @NonNull ChildNode node, final ExecutableNode.@Nullable Executable executable, final @NonNull CommandStack stack) {
+    this.input = input;
+    this.node = node;
+    this.executable = executable;
+    this.stack = stack;
+  }
+
+  /**
+   * Gets the input the command was parsed from.
+   *
+   * @return the input
+   */
+  public @NonNull String input() {
+    return this.input;
+  }
+
+  /**
+   * Gets the node the command was parsed to.
+   *
+   * @return the node
+   */
+  public @NonNull ChildNode node() {
+    return this.node;
+  }
+
+  /**
+   * Gets the stack the command will be executed with.
+   *
+   * @return the stack
+   */
+  public @NonNull CommandStack stack() {
+    return this.stack;
+  }
+
+  /**
+   * Executes the command.
+   *
+   * <p>A command whose node has no executable does nothing.</p>
+   *
+   * @throws CommandException if an exception is encountered during execution
+   */
+  public void execute() throws CommandException {
+    if(this.executable != null) {
+      this.executable.execute(this.stack);
+    }
+  }
+
+  @Override
+  public @NonNull Stream<? extends ExaminableProperty> examinableProperties() {
+    return Stream.of(
+      ExaminableProperty.of("input", this.input),
+      ExaminableProperty.of("node", this.node)
+    );
+  }
+}
@@ -0,0 +1,104 @@
+/*
+ * This file is part of kata, licensed under the MIT License.
+ *
+ * Copyright (c) 2018 KyoriPowered
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.kyori.kata.dispatcher;
+
+import com.google.common.cache.Cache;
+import net.kyori.kata.context.CommandContext;
+import net.kyori.kata.node.ChildNode;
+import net.kyori.kata.requirement.Requirement;
+import net.kyori.lambda.function.MorePredicates;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Predicate;
+
+/**
+ * Memoized requirement outcomes for a single context.
+ *
+ * <p>A requirement predicate is tested at most once, no matter how many nodes share it. Outcomes are
+ * kept for the duration of a single parse or usage call, or - when the dispatcher has a requirement
+ * cache - for as long as the cache keeps them.</p>
+ */
+final class Requirements {
+  private final CommandContext context;
+  private final Map<Predicate<CommandContext>, Boolean> outcomes;
+
+  private Requirements(final CommandContext context, final Map<Predicate<CommandContext>, Boolean> outcomes) {
+    this.context = context;
+    this.outcomes = outcomes;
+  }
+
+  /**
+   * Creates requirement outcomes for {@code context}.
+   *
+   * @param context the context
+   * @param cache the shared outcome cache
+   * @return the requirement outcomes
+   */
+  static @NonNull Requirements of(final @NonNull CommandContext context, final @Nullable Cache<CommandContext, Map<Predicate<CommandContext>, Boolean>> cache) {
+    if(cache != null) {
+      try {
+        return new Requirements(context, cache.get(context, ConcurrentHashMap::new));
+      } catch(final ExecutionException e) {
+        throw new IllegalStateException(e); // creating a map cannot fail
+      }
+    }
+    return new Requirements(context, new HashMap<>());
+  }
+
+  /**
+   * Gets the context.
+   *
+   * @return the context
+   */
+  @NonNull CommandContext context() {
+    return this.context;
+  }
+
+  /**
+   * Checks if {@code node} can be used.
+   *
+   * @param node the node
+   * @return {@code true} if {@code node} can be used
+   */
+  boolean canUse(final @NonNull ChildNode node) {
+    final Predicate<CommandContext> requirement = node.requirement();
+    if(requirement == MorePredicates.<CommandContext>alwaysTrue()) {
+      return true;
+    } else if(requirement instanceof Requirement) {
+      return this.context.capabilities().containsAll(((Requirement) requirement).capabilities());
+    }
+    final @Nullable Boolean outcome = this.outcomes.get(requirement);
+    if(outcome != null) {
+      return outcome;
+    }
+    final boolean canUse = node.canUse(this.context);
+    this.outcomes.put(requirement, canUse);
+    return canUse;
+  }
+}
@@ -0,0 +1,216 @@
+/*
+ * This file is part of kata, licensed under the MIT License.
+ *
+ * Copyright (c) 2018 KyoriPowered
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.kyori.kata.dispatcher;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import net.kyori.kata.Usage;
+import net.kyori.kata.node.ChildNode;
+import net.kyori.kata.node.ExecutableNode;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Renders and memoizes the usage of nodes.
+ *
+ * <p>While rendering the usage of a node, the outcome of every requirement tested and the modification
+ * count of every node visited is recorded. A rendered usage is reused when all of those are unchanged,
+ * so a cached usage is invalidated by modifying the tree, and contexts that pass different requirements
+ * each get their own usage. A few usages are kept per node.</p>
+ */
+final class UsageCache {
+  private static final int VARIANTS = 4;
+  private final Cache<ChildNode, Entry[]> entries = CacheBuilder.newBuilder()
+    .weakKeys()
+    .build();
+
+  /**
+   * Gets the usage of {@code node}.
+   *
+   * @param node the node
+   * @param requirements the requirements of the context
+   * @param optional if the node is optional
+   * @return the usage, or {@code null} if the node cannot be used
+   */
+  @Nullable String get(final @NonNull ChildNode node, final @NonNull Requirements requirements, final boolean optional) {
+    final Entry @Nullable [] entries = this.entries.getIfPresent(node);
+    if(entries != null) {
+      for(final Entry entry : entries) {
+        if(entry.optional == optional && entry.valid(requirements)) {
+          return entry.usage;
+        }
+      }
+    }
+    final Trace trace = new Trace(requirements);
+    final @Nullable String usage = render(node, trace, optional);
+    final Entry entry = new Entry(optional, trace.nodes.toArray(new ChildNode[0]), Arrays.copyOf(trace.outcomes, trace.size), Arrays.copyOf(trace.modifications, trace.size), usage);
+    this.entries.asMap().compute(node, (key, existing) -> {
+      if(existing == null) {
+        return new Entry[]{entry};
+      }
+      final Entry[] variants = new Entry[Math.min(existing.length + 1, VARIANTS)];
+      variants[0] = entry;
+      System.arraycopy(existing, 0, variants, 1, variants.length - 1);
+      return variants;
+    });
+    return usage;
+  }
+
+  private static @Nullable String render(final ChildNode node, final Trace trace, final boolean optional) {
+    final StringBuilder builder = new StringBuilder();
+    return render(node, trace, optional, false, builder) ? builder.toString() : null;
+  }
+
+  private static boolean render(final ChildNode node, final Trace trace, final boolean optional, final boolean deep, final StringBuilder builder) {
+    if(!trace.canUse(node)) {
+      return false;
+    }
+
+    self(node, optional, builder);
+
+    if(!deep) {
+      final @Nullable ChildNode redirect = node instanceof ExecutableNode ? ((ExecutableNode) node).redirect() : null;
+      if(redirect != null) {
+        builder.append(Dispatcher.ARGUMENT_SEPARATOR).append("-> ").append(redirect.usage());
+      } else {
+        final boolean childOptional = !(node instanceof ExecutableNode) || ((ExecutableNode) node).executable() != null;
+        final List<ChildNode> children = new ArrayList<>();
+        for(final ChildNode child : node.children()) {
+          if(trace.canUse(child)) {
+            children.add(child);
+          }
+        }
+        final int end = builder.length();
+        if(children.size() == 1) {
+          builder.append(Dispatcher.ARGUMENT_SEPARATOR);
+          if(!render(children.get(0), trace, childOptional, childOptional, builder)) {
+            builder.setLength(end);
+          }
+        } else if(children.size() > 1) {
+          // the usages of the children are only listed when they differ
+          @Nullable String first = null;
+          boolean distinct = false;
+          for(final ChildNode child : children) {
+            final StringBuilder usage = new StringBuilder();
+            if(render(child, trace, childOptional, true, usage)) {
+              if(first == null) {
+                first = usage.toString();
+              } else if(!first.contentEquals(usage)) {
+                distinct = true;
+                break;
+              }
+            }
+          }
+          if(first != null) {
+            builder.append(Dispatcher.ARGUMENT_SEPARATOR);
+            if(!distinct) {
+              if(childOptional) {
+                builder.append(Usage.OPTIONAL_OPEN).append(first).append(Usage.OPTIONAL_CLOSE);
+              } else {
+                builder.append(first);
+              }
+            } else {
+              builder.append(childOptional ? Usage.OPTIONAL_OPEN : Usage.REQUIRED_OPEN);
+              for(int i = 0, size = children.size(); i < size; i++) {
+                if(i > 0) {
+                  builder.append(Usage.OR);
+                }
+                builder.append(children.get(i).usage());
+              }
+              builder.append(childOptional ? Usage.OPTIONAL_CLOSE : Usage.REQUIRED_CLOSE);
+            }
+          }
+        }
+      }
+    }
+
+    return true;
+  }
+
+  private static void self(final ChildNode node, final boolean optional, final StringBuilder builder) {
+    if(optional) {
+      builder.append(Usage.OPTIONAL_OPEN).append(node.usage()).append(Usage.OPTIONAL_CLOSE);
+    } else {
+      builder.append(node.usage());
+    }
+  }
+
+  /**
+   * The requirements tested and nodes visited while rendering a usage.
+   */
+  private static final class Trace {
+    final Requirements requirements;
+    final List<ChildNode> nodes = new ArrayList<>();
+    boolean[] outcomes = new boolean[8];
+    int[] modifications = new int[8];
+    int size;
+
+    Trace(final Requirements requirements) {
+      this.requirements = requirements;
+    }
+
+    boolean canUse(final ChildNode node) {
+      final boolean canUse = this.requirements.canUse(node);
+      if(this.size == this.outcomes.length) {
+        this.outcomes = Arrays.copyOf(this.outcomes, this.size * 2);
+        this.modifications = Arrays.copyOf(this.modifications, this.size * 2);
+      }
+      this.nodes.add(node);
+      this.outcomes[this.size] = canUse;
+      this.modifications[this.size] = node.modifications();
+      this.size++;
+      return canUse;
+    }
+  }
+
+  private static final class Entry {
+    final boolean optional;
+    final ChildNode[] nodes;
+    final boolean[] outcomes;
+    final int[] modifications;
+    final @Nullable String usage;
+
+    Entry(final boolean optional, final ChildNode[] nodes, final boolean[] outcomes, final int[] modifications, final @Nullable String usage) {
+      this.optional = optional;
+      this.nodes = nodes;
+      this.outcomes = outcomes;
+      this.modifications = modifications;
+      this.usage = usage;
+    }
+
+    boolean valid(final Requirements requirements) {
+      for(int i = 0; i < this.nodes.length; i++) {
+        final ChildNode node = this.nodes[i];
+        if(node.modifications() != this.modifications[i] || requirements.canUse(node) != this.outcomes[i]) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+}
@@ -24,21 +24,47 @@
 package net.kyori.kata.exception;
 
 import net.kyori.string.StringReaderGetter;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
+/**
+ * A command exception with a position in the string being parsed.
+ *
+ * <p>Contextual exceptions are thrown for malformed input, which may be frequent, so they do not capture a
+ * stack trace, and their message is only formatted when it is requested.</p>
+ */
 public class ContextualCommandException extends CommandException {
   private final String string;
   private final int index;
+  private final @Nullable String message;
 
   public ContextualCommandException(final StringReaderGetter reader, final String message) {
-    super(message);
-    this.string = reader.asString();
-    this.index = reader.index();
+    this(reader, message, null);
   }
 
-  public ContextualCommandException(final StringReaderGetter reader, final String message, final Throwable cause) {
-    super(message, cause);
+  public ContextualCommandException(final StringReaderGetter reader, final String message, final @Nullable Throwable cause) {
+    super(null, cause, false, false);
     this.string = reader.asString();
     this.index = reader.index();
+    this.message = message;
+  }
+
+  /**
+   * Constructs an exception whose message is provided by overriding {@link #message()}.
+   *
+   * @param reader the reader
+   */
+  protected ContextualCommandException(final StringReaderGetter reader) {
+    this(reader, (Throwable) null);
+  }
+
+  /**
+   * Constructs an exception whose message is provided by overriding {@link #message()}.
+   *
+   * @param reader the reader
+   * @param cause the cause
+   */
+  protected ContextualCommandException(final StringReaderGetter reader, final @Nullable Throwable cause) {
+    this(reader, null, cause);
   }
 
   /**
@@ -49,7 +75,7 @@ public class ContextualCommandException extends CommandException {
    * @return the exception message
    */
   public String message() {
-    return super.getMessage();
+    return this.message;
   }
 
   /**
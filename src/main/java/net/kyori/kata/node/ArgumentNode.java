@@ -23,12 +23,20 @@
  */
 package net.kyori.kata.node;
 
+import net.kyori.kata.argument.Argument;
 import org.checkerframework.checker.nullness.qual.NonNull;
 
 /**
  * An argument node.
  */
 public interface ArgumentNode extends ExecutableNode {
+  /**
+   * Gets the argument.
+   *
+   * @return the argument
+   */
+  @NonNull Argument<?> argument();
+
   @Override
   @NonNull ArgumentNode add(final @NonNull ChildNode node);
 
@@ -25,6 +25,7 @@ package net.kyori.kata.node;
 
 import net.kyori.kata.Usage;
 import net.kyori.kata.argument.Argument;
+import net.kyori.kata.argument.ArgumentType;
 import net.kyori.kata.context.CommandContext;
 import net.kyori.kata.context.CommandStack;
 import net.kyori.kata.exception.CommandException;
@@ -32,6 +33,7 @@ import net.kyori.lambda.examine.ExaminableProperty;
 import net.kyori.string.StringRange;
 import net.kyori.string.StringReader;
 import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
 import java.util.stream.Stream;
 
@@ -43,6 +45,11 @@ final class ArgumentNodeImpl<T> extends ExecutableNodeImpl<ArgumentNode> impleme
     this.argument = builder.argument;
   }
 
+  @Override
+  public @NonNull Argument<T> argument() {
+    return this.argument;
+  }
+
   @Override
   public @NonNull String name() {
     return this.argument.name();
@@ -54,9 +61,43 @@ final class ArgumentNodeImpl<T> extends ExecutableNodeImpl<ArgumentNode> impleme
   }
 
   @Override
+  public boolean canStartWith(final char character) {
+    return this.argument.type().canStartWith(character);
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
   public boolean parse(final CommandStack.@NonNull Builder stack, final @NonNull CommandContext context, final @NonNull StringReader reader) throws CommandException {
     final int start = reader.index();
-    final T result = this.argument.type().parse(context, reader);
+    final ArgumentType<T> type = this.argument.type();
+    // primitive types are parsed and stored without boxing
+    if(type instanceof ArgumentType.OfInt) {
+      final int result = ((ArgumentType.OfInt) type).tryParseInt(context, reader);
+      if(reader.index() == start) {
+        return false;
+      }
+      stack.intArgument((Argument<Integer>) this.argument, StringRange.between(start, reader.index()), result);
+      return true;
+    } else if(type instanceof ArgumentType.OfLong) {
+      final long result = ((ArgumentType.OfLong) type).tryParseLong(context, reader);
+      if(reader.index() == start) {
+        return false;
+      }
+      stack.longArgument((Argument<Long>) this.argument, StringRange.between(start, reader.index()), result);
+      return true;
+    } else if(type instanceof ArgumentType.OfDouble) {
+      final double result = ((ArgumentType.OfDouble) type).tryParseDouble(context, reader);
+      if(reader.index() == start) {
+        return false;
+      }
+      stack.doubleArgument((Argument<Double>) this.argument, StringRange.between(start, reader.index()), result);
+      return true;
+    }
+    final @Nullable T result = type.tryParse(context, reader);
+    if(result == null) {
+      reader.index(start);
+      return false;
+    }
     final int end = reader.index();
     stack.argument(this.argument, StringRange.between(start, end), result);
     return true;
@@ -0,0 +1,397 @@
+/*
+ * This file is part of kata, licensed under the MIT License.
+ *
+ * Copyright (c) 2018 KyoriPowered
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.kyori.kata.node;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * An immutable map of children by name, in the order they were added.
+ *
+ * <p>Children are held in a persistent vector, and found by name through a hash trie of their positions, so adding
+ * or removing a child only copies one path of each. Removing a child leaves a gap in the vector until more than half
+ * of it is gaps, when it is compacted.</p>
+ */
+final class ChildMap extends AbstractMap<String, ChildNode> {
+  private static final int BITS = 5;
+  private static final int WIDTH = 1 << BITS;
+  private static final int MASK = WIDTH - 1;
+  static final ChildMap EMPTY = new ChildMap(new Object[WIDTH], 0, 0, 0, Trie.EMPTY);
+  // the vector of children, which are null where a child was removed
+  private final Object[] vector;
+  private final int shift;
+  private final int count;
+  private final int size;
+  private final Trie trie;
+  private @Nullable Collection<ChildNode> values;
+
+  private ChildMap(final Object[] vector, final int shift, final int count, final int size, final Trie trie) {
+    this.vector = vector;
+    this.shift = shift;
+    this.count = count;
+    this.size = size;
+    this.trie = trie;
+  }
+
+  @Override
+  public @Nullable ChildNode get(final @Nullable Object key) {
+    if(!(key instanceof String)) {
+      return null;
+    }
+    final @Nullable Entry entry = this.trie.get(key.hashCode(), (String) key);
+    return entry != null ? entry.node : null;
+  }
+
+  @Override
+  public boolean containsKey(final @Nullable Object key) {
+    return this.get(key) != null;
+  }
+
+  @Override
+  public int size() {
+    return this.size;
+  }
+
+  /**
+   * Gets a map with a child added, or replacing the child of the same name.
+   *
+   * @param node the child
+   * @return the map
+   */
+  @NonNull ChildMap with(final @NonNull ChildNode node) {
+    final String name = node.name();
+    final int hash = name.hashCode();
+    final @Nullable Entry existing = this.trie.get(hash, name);
+    if(existing != null) {
+      return new ChildMap(set(this.vector, this.shift, existing.slot, node), this.shift, this.count, this.size, this.trie.put(0, new Entry(name, hash, existing.slot, node)));
+    }
+    Object[] vector = this.vector;
+    int shift = this.shift;
+    if(this.count == 1 << (shift + BITS)) {
+      vector = new Object[WIDTH];
+      vector[0] = this.vector;
+      shift += BITS;
+    }
+    return new ChildMap(set(vector, shift, this.count, node), shift, this.count + 1, this.size + 1, this.trie.put(0, new Entry(name, hash, this.count, node)));
+  }
+
+  /**
+   * Gets a map with children removed.
+   *
+   * @param names the names of the children
+   * @return the map, or this map if none of the children are present
+   */
+  @NonNull ChildMap without(final @NonNull Collection<String> names) {
+    Object[] vector = this.vector;
+    int size = this.size;
+    Trie trie = this.trie;
+    for(final String name : names) {
+      final int hash = name.hashCode();
+      final @Nullable Entry entry = trie.get(hash, name);
+      if(entry != null) {
+        vector = set(vector, this.shift, entry.slot, null);
+        trie = trie.remove(0, hash, name);
+        size--;
+      }
+    }
+    if(size == this.size) {
+      return this;
+    }
+    final ChildMap map = new ChildMap(vector, this.shift, this.count, size, trie);
+    if(this.count > WIDTH && size * 2 < this.count) {
+      ChildMap compacted = EMPTY;
+      for(final ChildNode node : map.values()) {
+        compacted = compacted.with(node);
+      }
+      return compacted;
+    }
+    return map;
+  }
+
+  private static Object[] set(final Object[] node, final int shift, final int index, final @Nullable Object value) {
+    final Object[] copy = node.clone();
+    if(shift == 0) {
+      copy[index & MASK] = value;
+    } else {
+      final int branch = (index >>> shift) & MASK;
+      final Object @Nullable [] child = (Object[]) node[branch];
+      copy[branch] = set(child != null ? child : new Object[WIDTH], shift - BITS, index, value);
+    }
+    return copy;
+  }
+
+  // the leaf of the vector holding index
+  private Object[] leaf(final int index) {
+    Object[] node = this.vector;
+    for(int level = this.shift; level > 0; level -= BITS) {
+      node = (Object[]) node[(index >>> level) & MASK];
+    }
+    return node;
+  }
+
+  @Override
+  public @NonNull Collection<ChildNode> values() {
+    @Nullable Collection<ChildNode> values = this.values;
+    if(values == null) {
+      values = new AbstractCollection<ChildNode>() {
+        @Override
+        public @NonNull Iterator<ChildNode> iterator() {
+          return new Values();
+        }
+
+        @Override
+        public int size() {
+          return ChildMap.this.size;
+        }
+      };
+      this.values = values;
+    }
+    return values;
+  }
+
+  @Override
+  public @NonNull Set<Map.Entry<String, ChildNode>> entrySet() {
+    return new AbstractSet<Map.Entry<String, ChildNode>>() {
+      @Override
+      public @NonNull Iterator<Map.Entry<String, ChildNode>> iterator() {
+        final Iterator<ChildNode> values = new Values();
+        return new Iterator<Map.Entry<String, ChildNode>>() {
+          @Override
+          public boolean hasNext() {
+            return values.hasNext();
+          }
+
+          @Override
+          public Map.Entry<String, ChildNode> next() {
+            final ChildNode node = values.next();
+            return new SimpleImmutableEntry<>(node.name(), node);
+          }
+        };
+      }
+
+      @Override
+      public int size() {
+        return ChildMap.this.size;
+      }
+    };
+  }
+
+  // iterates the vector a leaf at a time, skipping gaps
+  private final class Values implements Iterator<ChildNode> {
+    private Object[] leaf = ChildMap.this.vector;
+    private int index = -1;
+    private @Nullable ChildNode next;
+
+    Values() {
+      this.advance();
+    }
+
+    private void advance() {
+      this.next = null;
+      while(++this.index < ChildMap.this.count) {
+        if((this.index & MASK) == 0) {
+          this.leaf = ChildMap.this.leaf(this.index);
+        }
+        final @Nullable Object node = this.leaf[this.index & MASK];
+        if(node != null) {
+          this.next = (ChildNode) node;
+          return;
+        }
+      }
+    }
+
+    @Override
+    public boolean hasNext() {
+      return this.next != null;
+    }
+
+    @Override
+    public ChildNode next() {
+      final @Nullable ChildNode next = this.next;
+      if(next == null) {
+        throw new NoSuchElementException();
+      }
+      this.advance();
+      return next;
+    }
+  }
+
+  /**
+   * A child and its position in the vector.
+   */
+  private static final class Entry {
+    final String name;
+    final int hash;
+    final int slot;
+    final ChildNode node;
+
+    Entry(final String name, final int hash, final int slot, final ChildNode node) {
+      this.name = name;
+      this.hash = hash;
+      this.slot = slot;
+      this.node = node;
+    }
+  }
+
+  /**
+   * A node of the hash trie.
+   *
+   * <p>Each branch is an {@link Entry}, a nested trie, or an array of entries whose names have the same hash.</p>
+   */
+  private static final class Trie {
+    static final Trie EMPTY = new Trie(0, new Object[0]);
+    final int bitmap;
+    final Object[] branches;
+
+    Trie(final int bitmap, final Object[] branches) {
+      this.bitmap = bitmap;
+      this.branches = branches;
+    }
+
+    @Nullable Entry get(final int hash, final @NonNull String name) {
+      Trie trie = this;
+      for(int shift = 0; ; shift += BITS) {
+        final int bit = 1 << ((hash >>> shift) & MASK);
+        if((trie.bitmap & bit) == 0) {
+          return null;
+        }
+        final Object branch = trie.branches[Integer.bitCount(trie.bitmap & (bit - 1))];
+        if(branch instanceof Trie) {
+          trie = (Trie) branch;
+        } else if(branch instanceof Entry) {
+          return ((Entry) branch).name.equals(name) ? (Entry) branch : null;
+        } else {
+          for(final Entry entry : (Entry[]) branch) {
+            if(entry.name.equals(name)) {
+              return entry;
+            }
+          }
+          return null;
+        }
+      }
+    }
+
+    @NonNull Trie put(final int shift, final @NonNull Entry entry) {
+      final int bit = 1 << ((entry.hash >>> shift) & MASK);
+      final int index = Integer.bitCount(this.bitmap & (bit - 1));
+      if((this.bitmap & bit) == 0) {
+        final Object[] branches = new Object[this.branches.length + 1];
+        System.arraycopy(this.branches, 0, branches, 0, index);
+        branches[index] = entry;
+        System.arraycopy(this.branches, index, branches, index + 1, this.branches.length - index);
+        return new Trie(this.bitmap | bit, branches);
+      }
+      final Object[] branches = this.branches.clone();
+      branches[index] = put(this.branches[index], shift + BITS, entry);
+      return new Trie(this.bitmap, branches);
+    }
+
+    private static @NonNull Object put(final @NonNull Object branch, final int shift, final @NonNull Entry entry) {
+      if(branch instanceof Trie) {
+        return ((Trie) branch).put(shift, entry);
+      } else if(branch instanceof Entry) {
+        final Entry existing = (Entry) branch;
+        if(existing.name.equals(entry.name)) {
+          return entry;
+        } else if(existing.hash == entry.hash) {
+          return new Entry[]{existing, entry};
+        }
+        // the hashes differ in a later level
+        return EMPTY.put(shift, existing).put(shift, entry);
+      }
+      final Entry[] entries = (Entry[]) branch;
+      if(entries[0].hash != entry.hash) {
+        // the hashes differ in a later level
+        Trie trie = EMPTY;
+        for(final Entry existing : entries) {
+          trie = trie.put(shift, existing);
+        }
+        return trie.put(shift, entry);
+      }
+      for(int i = 0; i < entries.length; i++) {
+        if(entries[i].name.equals(entry.name)) {
+          final Entry[] copy = entries.clone();
+          copy[i] = entry;
+          return copy;
+        }
+      }
+      final Entry[] copy = new Entry[entries.length + 1];
+      System.arraycopy(entries, 0, copy, 0, entries.length);
+      copy[entries.length] = entry;
+      return copy;
+    }
+
+    @NonNull Trie remove(final int shift, final int hash, final @NonNull String name) {
+      final int bit = 1 << ((hash >>> shift) & MASK);
+      if((this.bitmap & bit) == 0) {
+        return this;
+      }
+      final int index = Integer.bitCount(this.bitmap & (bit - 1));
+      final Object branch = this.branches[index];
+      final @Nullable Object removed = remove(branch, shift + BITS, hash, name);
+      if(removed == branch) {
+        return this;
+      } else if(removed == null) {
+        final Object[] branches = new Object[this.branches.length - 1];
+        System.arraycopy(this.branches, 0, branches, 0, index);
+        System.arraycopy(this.branches, index + 1, branches, index, branches.length - index);
+        return new Trie(this.bitmap & ~bit, branches);
+      }
+      final Object[] branches = this.branches.clone();
+      branches[index] = removed;
+      return new Trie(this.bitmap, branches);
+    }
+
+    private static @Nullable Object remove(final @NonNull Object branch, final int shift, final int hash, final @NonNull String name) {
+      if(branch instanceof Trie) {
+        final Trie trie = ((Trie) branch).remove(shift, hash, name);
+        return trie.bitmap == 0 ? null : trie;
+      } else if(branch instanceof Entry) {
+        return ((Entry) branch).name.equals(name) ? null : branch;
+      }
+      final Entry[] entries = (Entry[]) branch;
+      for(int i = 0; i < entries.length; i++) {
+        if(entries[i].name.equals(name)) {
+          if(entries.length == 2) {
+            return entries[1 - i];
+          }
+          final Entry[] copy = new Entry[entries.length - 1];
+          System.arraycopy(entries, 0, copy, 0, i);
+          System.arraycopy(entries, i + 1, copy, i, copy.length - i);
+          return copy;
+        }
+      }
+      return branch;
+    }
+  }
+}
@@ -55,6 +55,23 @@ public interface ChildNode extends Node {
    */
   boolean canUse(final @NonNull CommandContext context);
 
+  /**
+   * Gets the requirement.
+   *
+   * @return the requirement
+   */
+  @NonNull Predicate<CommandContext> requirement();
+
+  /**
+   * Checks if this node can match input starting with {@code character}.
+   *
+   * @param character the character
+   * @return {@code true} if this node can match input starting with {@code character}, {@code false} otherwise
+   */
+  default boolean canStartWith(final char character) {
+    return true;
+  }
+
   /**
    * Gets the usage.
    *
@@ -44,6 +44,11 @@ abstract class ChildNodeImpl<N extends ChildNode> extends NodeImpl<N> implements
     return this.requirement.test(context);
   }
 
+  @Override
+  public @NonNull Predicate<CommandContext> requirement() {
+    return this.requirement;
+  }
+
   static abstract class Builder<N extends ChildNode, B extends ChildNode.Builder<N, B>> implements ChildNode.Builder<N, B> {
     @NonNull Predicate<CommandContext> requirement = MorePredicates.alwaysTrue();
     @MonotonicNonNull RootNode node;
@@ -28,6 +28,9 @@ import net.kyori.kata.exception.CommandException;
 import org.checkerframework.checker.nullness.qual.NonNull;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+
 /**
  * A executable node.
  */
@@ -61,6 +64,16 @@ public interface ExecutableNode extends ChildNode {
      */
     @NonNull B executes(final @NonNull Executable executable);
 
+    /**
+     * Sets the executable to one which completes asynchronously.
+     *
+     * @param executable the executable
+     * @return this builder
+     */
+    default @NonNull B executesAsync(final @NonNull AsyncExecutable executable) {
+      return this.executes(executable);
+    }
+
     /**
      * Sets the redirect.
      *
@@ -83,4 +96,36 @@ public interface ExecutableNode extends ChildNode {
      */
     void execute(final @NonNull CommandStack stack) throws CommandException;
   }
+
+  /**
+   * An executable which completes asynchronously.
+   */
+  @FunctionalInterface
+  interface AsyncExecutable extends Executable {
+    /**
+     * Executes asynchronously.
+     *
+     * @param stack the stack
+     * @return a stage which completes when execution has finished
+     */
+    @NonNull CompletionStage<?> executeAsync(final @NonNull CommandStack stack);
+
+    /**
+     * Executes, waiting for execution to finish.
+     *
+     * @param stack the stack
+     * @throws CommandException if an exception is encountered during execution
+     */
+    @Override
+    default void execute(final @NonNull CommandStack stack) throws CommandException {
+      try {
+        this.executeAsync(stack).toCompletableFuture().join();
+      } catch(final CompletionException e) {
+        if(e.getCause() instanceof CommandException) {
+          throw (CommandException) e.getCause();
+        }
+        throw e;
+      }
+    }
+  }
 }
@@ -36,7 +36,7 @@ import java.util.stream.Stream;
 abstract class ExecutableNodeImpl<N extends ExecutableNode> extends ChildNodeImpl<N> implements ExecutableNode {
   private final Predicate<CommandContext> requirement;
   private final @Nullable ExecutableNode redirect;
-  @MonotonicNonNull Executable executable;
+  volatile @Nullable Executable executable;
 
   ExecutableNodeImpl(final Builder<N, ?> builder) {
     super(builder);
@@ -50,6 +50,11 @@ abstract class ExecutableNodeImpl<N extends ExecutableNode> extends ChildNodeImp
     return this.requirement.test(context);
   }
 
+  @Override
+  public @NonNull Predicate<CommandContext> requirement() {
+    return this.requirement;
+  }
+
   @Override
   public @Nullable ExecutableNode redirect() {
     return this.redirect;
@@ -60,11 +65,19 @@ abstract class ExecutableNodeImpl<N extends ExecutableNode> extends ChildNodeImp
     return this.executable;
   }
 
-  void executable(final @NonNull Executable executable) {
+  synchronized void executable(final @NonNull Executable executable) {
     if(this.executable != null) {
       throw new UnsupportedOperationException("Cannot replace executable");
     }
     this.executable = executable;
+    this.modified();
+  }
+
+  synchronized void removeExecutable(final @NonNull Executable executable) {
+    if(this.executable == executable) {
+      this.executable = null;
+      this.modified();
+    }
   }
 
   @Override
@@ -26,14 +26,31 @@ package net.kyori.kata.node;
 import org.checkerframework.checker.nullness.qual.NonNull;
 
 /**
- * A literal node.
+ * A flag node.
+ *
+ * <p>Short flags are written as {@code -f}, and several may be combined as {@code -abc}.
+ * Long flags are written as {@code --name}.</p>
  */
 public interface FlagNode extends ChildNode {
+  /**
+   * Gets the flag, without its leading dashes.
+   *
+   * @return the flag
+   */
+  @NonNull String flag();
+
+  /**
+   * Checks if this is a long flag.
+   *
+   * @return {@code true} if this is a long flag
+   */
+  boolean isLong();
+
   @Override
   @NonNull FlagNode add(final @NonNull ChildNode node);
 
   /**
-   * A literal node builder.
+   * A flag node builder.
    */
   interface Builder extends ChildNode.Builder<FlagNode, Builder> {
   }
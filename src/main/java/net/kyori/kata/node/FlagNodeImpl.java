@@ -34,32 +34,55 @@ import org.checkerframework.checker.nullness.qual.NonNull;
 import java.util.stream.Stream;
 
 final class FlagNodeImpl extends ChildNodeImpl<FlagNode> implements FlagNode {
-  private final char flag;
+  private final String flag;
+  private final boolean isLong;
+  private final String name;
 
   private FlagNodeImpl(final Builder builder) {
     super(builder);
     this.flag = builder.flag;
+    this.isLong = builder.isLong;
+    this.name = (this.isLong ? "--" : "-") + this.flag;
+  }
+
+  @Override
+  public @NonNull String flag() {
+    return this.flag;
+  }
+
+  @Override
+  public boolean isLong() {
+    return this.isLong;
   }
 
   @Override
   public @NonNull String name() {
-    return "-" + this.flag;
+    return this.name;
   }
 
   @Override
   public @NonNull String usage() {
-    return "-" + this.flag;
+    return this.name;
+  }
+
+  @Override
+  public boolean canStartWith(final char character) {
+    return character == '-';
   }
 
   @Override
   public boolean parse(final CommandStack.@NonNull Builder stack, final @NonNull CommandContext context, final @NonNull StringReader reader) throws CommandException {
-    final String name = this.name();
-    if(reader.readable(name.length())) {
+    final int length = this.name.length();
+    if(reader.readable(length)) {
       final int start = reader.index();
-      final int end = start + name.length();
-      if(reader.string(StringRange.between(start, end)).equals(name)) {
-        reader.skip(end - start);
-        stack.flag(StringRange.between(start, end), this.flag);
+      final int end = start + length;
+      if(reader.asString().regionMatches(start, this.name, 0, length)) {
+        reader.skip(length);
+        if(this.isLong) {
+          stack.flag(StringRange.between(start, end), this.flag);
+        } else {
+          stack.flag(StringRange.between(start, end), this.flag.charAt(0));
+        }
         return true;
       }
     }
@@ -75,10 +98,12 @@ final class FlagNodeImpl extends ChildNodeImpl<FlagNode> implements FlagNode {
   }
 
   static final class Builder extends ChildNodeImpl.Builder<FlagNode, FlagNode.Builder> implements FlagNode.Builder {
-    private final char flag;
+    private final String flag;
+    private final boolean isLong;
 
-    Builder(final char flag) {
+    Builder(final String flag, final boolean isLong) {
       this.flag = flag;
+      this.isLong = isLong;
     }
 
     @Override
@@ -41,6 +41,11 @@ final class LiteralNodeImpl extends ExecutableNodeImpl<LiteralNode> implements L
     return this.name;
   }
 
+  @Override
+  public boolean canStartWith(final char character) {
+    return !this.name.isEmpty() && this.name.charAt(0) == character;
+  }
+
   @Override
   public @NonNull String usage() {
     return this.name;
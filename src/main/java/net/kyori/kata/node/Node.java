@@ -27,6 +27,7 @@ import net.kyori.kata.argument.Argument;
 import net.kyori.lambda.examine.Examinable;
 import net.kyori.string.StringReader;
 import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
 import java.util.Collection;
 
@@ -52,7 +53,20 @@ public interface Node extends Examinable {
    * @return a flag node
    */
   static FlagNode.@NonNull Builder flag(final char flag) {
-    return new FlagNodeImpl.Builder(flag);
+    return new FlagNodeImpl.Builder(String.valueOf(flag), false);
+  }
+
+  /**
+   * Creates a long flag node.
+   *
+   * @param flag the name
+   * @return a flag node
+   */
+  static FlagNode.@NonNull Builder longFlag(final @NonNull String flag) {
+    if(flag.isEmpty()) {
+      throw new IllegalArgumentException("flag must not be empty");
+    }
+    return new FlagNodeImpl.Builder(flag, true);
   }
 
   /**
@@ -81,6 +95,14 @@ public interface Node extends Examinable {
    */
   @NonNull Collection<? extends ChildNode> children();
 
+  /**
+   * Gets the child of this node with the given name.
+   *
+   * @param name the name
+   * @return the child, or {@code null} if this node has no child with that name
+   */
+  @Nullable ChildNode child(final @NonNull String name);
+
   /**
    * Gets the relevant children of this node.
    *
@@ -89,6 +111,16 @@ public interface Node extends Examinable {
    */
   @NonNull Collection<? extends ChildNode> relevantChildren(final @NonNull StringReader reader);
 
+  /**
+   * Gets the number of modifications made to this node.
+   *
+   * <p>The count changes whenever a child is added to or removed from this node, allowing
+   * compiled representations of the tree to detect that they are out of date.</p>
+   *
+   * @return the number of modifications
+   */
+  int modifications();
+
   /**
    * Adds a child to this node.
    *
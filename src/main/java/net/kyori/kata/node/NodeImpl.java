@@ -23,130 +23,252 @@
  */
 package net.kyori.kata.node;
 
+import net.kyori.kata.util.LiteralTable;
 import net.kyori.lambda.examine.ExaminableProperty;
 import net.kyori.string.StringReader;
-import org.checkerframework.checker.nullness.qual.MonotonicNonNull;
 import org.checkerframework.checker.nullness.qual.NonNull;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.LinkedHashMap;
-import java.util.LinkedHashSet;
-import java.util.Map;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
-import java.util.function.IntPredicate;
 import java.util.stream.Stream;
 
 abstract class NodeImpl<N extends Node> implements Node {
-  private static final IntPredicate NOT_SPACE = character -> character != ' ';
-  private @MonotonicNonNull Map<String, ChildNode> nodes;
-  private @MonotonicNonNull Map<String, LiteralNode> literals;
-  private @MonotonicNonNull Map<String, ArgumentNode> arguments;
-  private @MonotonicNonNull Map<String, FlagNode> flags;
+  private static final char SEPARATOR = ' ';
+  private volatile Children children = Children.EMPTY;
+  private volatile int modifications;
 
   @Override
   public @NonNull Collection<? extends ChildNode> children() {
-    if(this.nodes == null) {
-      return Collections.emptySet();
-    }
-    return this.nodes.values();
+    return this.children.nodes.values();
+  }
+
+  @Override
+  public @Nullable ChildNode child(final @NonNull String name) {
+    return this.children.nodes.get(name);
   }
 
   @Override
   public @NonNull Collection<? extends ChildNode> relevantChildren(final @NonNull StringReader reader) {
-    if(this.literals != null && !this.literals.isEmpty()) {
+    final Lookup lookup = this.children.lookup();
+    if(lookup.table.size() > 0) {
+      final String string = reader.asString();
       final int start = reader.index();
-      reader.skip(NOT_SPACE);
-      final int end = reader.index(start);
-      final @Nullable LiteralNode literal = this.literals.get(reader.string(start, end));
-      if(literal != null) {
-        return Collections.singleton(literal);
+      int end = string.indexOf(SEPARATOR, start);
+      if(end == -1) {
+        end = string.length();
+      }
+      final int literal = lookup.table.get(string, start, end);
+      if(literal != LiteralTable.ABSENT) {
+        return lookup.literals.get(literal);
       }
     }
-    Set<ChildNode> nodes = null;
-    if(this.arguments != null) {
-      if(nodes == null) {
-        nodes = new LinkedHashSet<>();
+    if(!reader.readable() || lookup.candidates.isEmpty()) {
+      return lookup.candidates;
+    }
+    final char next = reader.peek();
+    for(int i = 0, size = lookup.candidates.size(); i < size; i++) {
+      if(!lookup.candidates.get(i).canStartWith(next)) {
+        return filter(lookup.candidates, next);
       }
-      nodes.addAll(this.arguments.values());
     }
-    if(this.flags != null) {
-      if(nodes == null) {
-        nodes = new LinkedHashSet<>();
+    return lookup.candidates;
+  }
+
+  private static @NonNull List<ChildNode> filter(final @NonNull List<ChildNode> candidates, final char next) {
+    final List<ChildNode> nodes = new ArrayList<>(candidates.size());
+    for(final ChildNode candidate : candidates) {
+      if(candidate.canStartWith(next)) {
+        nodes.add(candidate);
       }
-      nodes.addAll(this.flags.values());
     }
-    return nodes == null ? Collections.emptySet() : nodes;
+    return nodes;
+  }
+
+  @Override
+  public int modifications() {
+    return this.modifications;
+  }
+
+  // the modification count is written after the children are published, so a reader that observes a count also observes the children it counts
+  synchronized void modified() {
+    this.modifications++;
   }
 
   @Override
   @SuppressWarnings("unchecked")
   public @NonNull N add(final @NonNull ChildNode node) {
-    this.add(node, node.name());
+    this.add(node, null);
     return (N) this;
   }
 
-  private void add(final @NonNull ChildNode node, final @NonNull String name) {
-    if(this.nodes != null) {
-      final @Nullable ChildNode target = this.nodes.get(name);
-      if(target != null) {
-        if(target != node && target instanceof ExecutableNodeImpl<?> && node instanceof ExecutableNodeImpl<?>) {
-          final ExecutableNode.@Nullable Executable executable = ((ExecutableNodeImpl<?>) node).executable;
-          if(executable != null) {
-            ((ExecutableNodeImpl<?>) target).executable(executable);
-          }
+  /**
+   * Adds a child to this node, merging it into an existing child of the same name.
+   *
+   * @param node the child node
+   * @param contributions the list to record the children and executables actually added in, or {@code null}
+   */
+  void add(final @NonNull ChildNode node, final @Nullable List<Contribution> contributions) {
+    final String name = node.name();
+    final @Nullable ChildNode target;
+    synchronized(this) {
+      final Children children = this.children;
+      target = children.nodes.get(name);
+      if(target == null) {
+        this.children = children.with(node);
+        this.modified();
+        if(contributions != null) {
+          contributions.add(new Contribution(this, node, null));
         }
-        node.children().forEach(target::add);
         return;
       }
-    } else {
-      this.nodes = new LinkedHashMap<>();
     }
-
-    this.nodes.put(name, node);
-
-    if(node instanceof LiteralNode) {
-      if(this.literals == null) {
-        this.literals = new LinkedHashMap<>(1);
+    if(target != node && target instanceof ExecutableNodeImpl<?> && node instanceof ExecutableNodeImpl<?>) {
+      final ExecutableNode.@Nullable Executable executable = ((ExecutableNodeImpl<?>) node).executable;
+      if(executable != null) {
+        ((ExecutableNodeImpl<?>) target).executable(executable);
+        if(contributions != null) {
+          contributions.add(new Contribution((ExecutableNodeImpl<?>) target, null, executable));
+        }
       }
-      this.literals.put(name, (LiteralNode) node);
-    } else if(node instanceof ArgumentNode) {
-      if(this.arguments == null) {
-        this.arguments = new LinkedHashMap<>(1);
+    }
+    for(final ChildNode child : node.children()) {
+      if(target instanceof NodeImpl<?>) {
+        ((NodeImpl<?>) target).add(child, contributions);
+      } else {
+        target.add(child);
       }
-      this.arguments.put(name, (ArgumentNode) node);
-    } else if(node instanceof FlagNode) {
-      if(this.flags == null) {
-        this.flags = new LinkedHashMap<>(1);
+    }
+  }
+
+  @Override
+  public synchronized void remove(final @NonNull String name) {
+    this.children = this.children.without(Collections.singleton(name));
+    this.modified();
+  }
+
+  /**
+   * Removes children, ignoring any that have since been replaced by another node of the same name.
+   *
+   * @param nodes the children
+   * @return the children which were removed
+   */
+  synchronized @NonNull List<ChildNode> remove(final @NonNull Collection<ChildNode> nodes) {
+    final Children children = this.children;
+    final Set<String> names = new HashSet<>();
+    final List<ChildNode> removed = new ArrayList<>();
+    for(final ChildNode node : nodes) {
+      if(children.nodes.get(node.name()) == node && names.add(node.name())) {
+        removed.add(node);
       }
-      this.flags.put(name, (FlagNode) node);
-    } else {
-      throw new IllegalArgumentException("Don't know how to add a " + node.getClass());
     }
+    if(!names.isEmpty()) {
+      this.children = children.without(names);
+      this.modified();
+    }
+    return removed;
   }
 
   @Override
-  public void remove(final @NonNull String name) {
-    if(this.nodes != null) {
-      this.nodes.remove(name);
+  public @NonNull Stream<? extends ExaminableProperty> examinableProperties() {
+    return Stream.of(ExaminableProperty.of("nodes", this.children.nodes));
+  }
+
+  /**
+   * A child or an executable added to a node.
+   */
+  static final class Contribution {
+    final NodeImpl<?> parent;
+    final @Nullable ChildNode child;
+    final ExecutableNode.@Nullable Executable executable;
+
+    Contribution(final @NonNull NodeImpl<?> parent, final @Nullable ChildNode child, final ExecutableNode.@Nullable Executable executable) {
+      this.parent = parent;
+      this.child = child;
+      this.executable = executable;
     }
+  }
+
+  /**
+   * An immutable snapshot of the children of a node.
+   *
+   * <p>Modifying a node publishes a new snapshot which shares all but one path of the previous {@link ChildMap},
+   * so readers never observe the children while they are being modified.</p>
+   */
+  private static final class Children {
+    static final Children EMPTY = new Children(ChildMap.EMPTY);
+    final ChildMap nodes;
+    private @Nullable Lookup lookup;
 
-    if(this.literals != null) {
-      this.literals.remove(name);
+    private Children(final ChildMap nodes) {
+      this.nodes = nodes;
     }
 
-    if(this.arguments != null) {
-      this.arguments.remove(name);
+    @NonNull Children with(final @NonNull ChildNode node) {
+      if(!(node instanceof LiteralNode || node instanceof ArgumentNode || node instanceof FlagNode)) {
+        throw new IllegalArgumentException("Don't know how to add a " + node.getClass());
+      }
+      return new Children(this.nodes.with(node));
     }
 
-    if(this.flags != null) {
-      this.flags.remove(name);
+    @NonNull Children without(final @NonNull Collection<String> names) {
+      final ChildMap nodes = this.nodes.without(names);
+      return nodes == this.nodes ? this : new Children(nodes);
+    }
+
+    // racing readers may each build a lookup - they are equivalent, and the lookup is safely published by its final fields
+    @NonNull Lookup lookup() {
+      @Nullable Lookup lookup = this.lookup;
+      if(lookup == null) {
+        lookup = new Lookup(this.nodes.values());
+        this.lookup = lookup;
+      }
+      return lookup;
     }
   }
 
-  @Override
-  public @NonNull Stream<? extends ExaminableProperty> examinableProperties() {
-    return Stream.of(ExaminableProperty.of("nodes", this.nodes));
+  /**
+   * Precomputed lookup state for {@link #relevantChildren(StringReader)}, built once per snapshot of the children.
+   */
+  private static final class Lookup {
+    final LiteralTable table;
+    final List<Collection<LiteralNode>> literals;
+    final List<ChildNode> candidates;
+
+    Lookup(final @NonNull Collection<ChildNode> children) {
+      final List<String> names = new ArrayList<>();
+      final List<Collection<LiteralNode>> literals = new ArrayList<>();
+      final List<ChildNode> arguments = new ArrayList<>();
+      final List<ChildNode> flags = new ArrayList<>();
+      for(final ChildNode child : children) {
+        if(child instanceof LiteralNode) {
+          names.add(child.name());
+          literals.add(Collections.singleton((LiteralNode) child));
+        } else if(child instanceof FlagNode) {
+          flags.add(child);
+        } else {
+          arguments.add(child);
+        }
+      }
+      if(literals.isEmpty()) {
+        this.table = LiteralTable.empty();
+        this.literals = Collections.emptyList();
+      } else {
+        final int[] indices = new int[names.size()];
+        for(int i = 0; i < indices.length; i++) {
+          indices[i] = i;
+        }
+        this.table = LiteralTable.of(names.toArray(new String[0]), indices);
+        this.literals = literals;
+      }
+      final List<ChildNode> candidates = new ArrayList<>(arguments.size() + flags.size());
+      candidates.addAll(arguments);
+      candidates.addAll(flags);
+      this.candidates = candidates.isEmpty() ? Collections.emptyList() : Collections.unmodifiableList(candidates);
+    }
   }
 }
@@ -23,8 +23,33 @@
  */
 package net.kyori.kata.node;
 
+import org.checkerframework.checker.nullness.qual.NonNull;
+
 /**
  * A root node.
  */
 public interface RootNode extends Node {
+  /**
+   * Adds a child to this node on behalf of an owner.
+   *
+   * <p>Everything the child contributes to the tree - including children and executables merged
+   * into existing nodes of the same name - is recorded against {@code owner}, and can be removed
+   * with {@link #removeAll(Object)}.</p>
+   *
+   * @param node the child node
+   * @param owner the owner
+   * @return this node
+   */
+  @NonNull RootNode add(final @NonNull ChildNode node, final @NonNull Object owner);
+
+  /**
+   * Removes everything added on behalf of an owner.
+   *
+   * <p>Nodes which have since been replaced are left untouched, and anything merged into a removed
+   * node by another owner is removed along with it, and is no longer recorded against that owner.
+   * This takes time proportional to what the owner added, plus the size of the subtrees it removes.</p>
+   *
+   * @param owner the owner
+   */
+  void removeAll(final @NonNull Object owner);
 }
@@ -23,5 +23,92 @@
  */
 package net.kyori.kata.node;
 
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
 final class RootNodeImpl extends NodeImpl<RootNode> implements RootNode {
+  // guarded by this - the contributions of each owner, and the owner of each contribution by the node it was made to
+  private final Map<Object, Set<Contribution>> owners = new HashMap<>();
+  private final Map<Node, Map<Contribution, Object>> dependents = new IdentityHashMap<>();
+
+  @Override
+  public synchronized @NonNull RootNode add(final @NonNull ChildNode node, final @NonNull Object owner) {
+    final List<Contribution> contributions = new ArrayList<>();
+    this.add(node, contributions);
+    if(!contributions.isEmpty()) {
+      final Set<Contribution> owned = this.owners.computeIfAbsent(owner, key -> new LinkedHashSet<>());
+      for(final Contribution contribution : contributions) {
+        owned.add(contribution);
+        this.dependents.computeIfAbsent(contribution.parent, key -> new IdentityHashMap<>()).put(contribution, owner);
+      }
+    }
+    return this;
+  }
+
+  @Override
+  public synchronized void removeAll(final @NonNull Object owner) {
+    final @Nullable Set<Contribution> contributions = this.owners.remove(owner);
+    if(contributions == null) {
+      return;
+    }
+    // children are removed from each parent at once, so each parent is only modified once
+    final Map<NodeImpl<?>, List<ChildNode>> children = new IdentityHashMap<>();
+    for(final Contribution contribution : contributions) {
+      this.forget(contribution);
+      if(contribution.child != null) {
+        children.computeIfAbsent(contribution.parent, parent -> new ArrayList<>()).add(contribution.child);
+      } else if(contribution.executable != null) {
+        ((ExecutableNodeImpl<?>) contribution.parent).removeExecutable(contribution.executable);
+      }
+    }
+    final List<ChildNode> removed = new ArrayList<>();
+    children.forEach((parent, nodes) -> removed.addAll(parent.remove(nodes)));
+    this.prune(removed);
+  }
+
+  private void forget(final @NonNull Contribution contribution) {
+    final @Nullable Map<Contribution, Object> contributions = this.dependents.get(contribution.parent);
+    if(contributions != null) {
+      contributions.remove(contribution);
+      if(contributions.isEmpty()) {
+        this.dependents.remove(contribution.parent);
+      }
+    }
+  }
+
+  // discards what other owners contributed to removed nodes, which would otherwise keep the nodes reachable
+  private void prune(final @NonNull List<ChildNode> removed) {
+    if(this.dependents.isEmpty()) {
+      return;
+    }
+    final Deque<Node> queue = new ArrayDeque<>(removed);
+    final Set<Node> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+    while(!queue.isEmpty()) {
+      final Node node = queue.pop();
+      if(!seen.add(node)) {
+        continue;
+      }
+      final @Nullable Map<Contribution, Object> contributions = this.dependents.remove(node);
+      if(contributions != null) {
+        contributions.forEach((contribution, owner) -> {
+          final @Nullable Set<Contribution> owned = this.owners.get(owner);
+          if(owned != null && owned.remove(contribution) && owned.isEmpty()) {
+            this.owners.remove(owner);
+          }
+        });
+      }
+      queue.addAll(node.children());
+    }
+  }
 }
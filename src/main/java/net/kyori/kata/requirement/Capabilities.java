@@ -0,0 +1,164 @@
+/*
+ * This file is part of kata, licensed under the MIT License.
+ *
+ * Copyright (c) 2018 KyoriPowered
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.kyori.kata.requirement;
+
+import net.kyori.lambda.examine.Examinable;
+import net.kyori.lambda.examine.ExaminableProperty;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.stream.Stream;
+
+/**
+ * An immutable set of capabilities, stored as a bitset indexed by {@link Capability#id() capability id}.
+ */
+public final class Capabilities implements Examinable {
+  private static final Capabilities EMPTY = new Capabilities(new long[0]);
+  private final long[] words;
+
+  private Capabilities(final long[] words) {
+    this.words = words;
+  }
+
+  /**
+   * Gets an empty capability set.
+   *
+   * @return an empty capability set
+   */
+  public static @NonNull Capabilities empty() {
+    return EMPTY;
+  }
+
+  /**
+   * Creates a capability set.
+   *
+   * @param capabilities the capabilities
+   * @return the capability set
+   */
+  public static @NonNull Capabilities of(final @NonNull Capability... capabilities) {
+    return of(Arrays.asList(capabilities));
+  }
+
+  /**
+   * Creates a capability set.
+   *
+   * @param capabilities the capabilities
+   * @return the capability set
+   */
+  public static @NonNull Capabilities of(final @NonNull Collection<Capability> capabilities) {
+    if(capabilities.isEmpty()) {
+      return EMPTY;
+    }
+    int max = 0;
+    for(final Capability capability : capabilities) {
+      max = Math.max(max, capability.id());
+    }
+    final long[] words = new long[(max >>> 6) + 1];
+    for(final Capability capability : capabilities) {
+      words[capability.id() >>> 6] |= 1L << capability.id();
+    }
+    return new Capabilities(words);
+  }
+
+  /**
+   * Checks if this set is empty.
+   *
+   * @return {@code true} if this set is empty
+   */
+  public boolean isEmpty() {
+    return this.words.length == 0;
+  }
+
+  /**
+   * Checks if this set contains {@code capability}.
+   *
+   * @param capability the capability
+   * @return {@code true} if this set contains {@code capability}
+   */
+  public boolean contains(final @NonNull Capability capability) {
+    final int word = capability.id() >>> 6;
+    return word < this.words.length && (this.words[word] & (1L << capability.id())) != 0;
+  }
+
+  /**
+   * Checks if this set contains every capability in {@code that}.
+   *
+   * @param that the other set
+   * @return {@code true} if this set contains every capability in {@code that}
+   */
+  public boolean containsAll(final @NonNull Capabilities that) {
+    final long[] words = that.words;
+    if(words.length > this.words.length) {
+      return false;
+    }
+    for(int i = 0; i < words.length; i++) {
+      if((this.words[i] & words[i]) != words[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Creates a set containing the capabilities of both this set and {@code that}.
+   *
+   * @param that the other set
+   * @return the union
+   */
+  public @NonNull Capabilities union(final @NonNull Capabilities that) {
+    if(this.containsAll(that)) {
+      return this;
+    } else if(that.containsAll(this)) {
+      return that;
+    }
+    final long[] words = Arrays.copyOf(this.words, Math.max(this.words.length, that.words.length));
+    for(int i = 0; i < that.words.length; i++) {
+      words[i] |= that.words[i];
+    }
+    return new Capabilities(words);
+  }
+
+  @Override
+  public @NonNull Stream<? extends ExaminableProperty> examinableProperties() {
+    return Stream.of(ExaminableProperty.of("words", Arrays.toString(this.words)));
+  }
+
+  @Override
+  public boolean equals(final Object other) {
+    if(this == other) {
+      return true;
+    }
+    if(other == null || this.getClass() != other.getClass()) {
+      return false;
+    }
+    final Capabilities that = (Capabilities) other;
+    return Arrays.equals(this.words, that.words);
+  }
+
+  @Override
+  public int hashCode() {
+    return Arrays.hashCode(this.words);
+  }
+}
@@ -0,0 +1,87 @@
+/*
+ * This file is part of kata, licensed under the MIT License.
+ *
+ * Copyright (c) 2018 KyoriPowered
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.kyori.kata.requirement;
+
+import net.kyori.lambda.examine.Examinable;
+import net.kyori.lambda.examine.ExaminableProperty;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * A capability, such as a permission.
+ *
+ * <p>Capabilities are interned by name: each distinct name is assigned a small integer id, which is
+ * its position in a {@link Capabilities capability set}.</p>
+ */
+public final class Capability implements Examinable {
+  private static final Map<String, Capability> CAPABILITIES = new ConcurrentHashMap<>();
+  private static final AtomicInteger IDS = new AtomicInteger();
+  private final String name;
+  private final int id;
+
+  /**
+   * Gets the capability named {@code name}.
+   *
+   * @param name the name
+   * @return the capability
+   */
+  public static @NonNull Capability of(final @NonNull String name) {
+    return CAPABILITIES.computeIfAbsent(name, key -> new Capability(key, IDS.getAndIncrement()));
+  }
+
+  private Capability(final String name, final int id) {
+    this.name = name;
+    this.id = id;
+  }
+
+  /**
+   * Gets the name.
+   *
+   * @return the name
+   */
+  public @NonNull String name() {
+    return this.name;
+  }
+
+  /**
+   * Gets the id.
+   *
+   * @return the id
+   */
+  public int id() {
+    return this.id;
+  }
+
+  @Override
+  public @NonNull Stream<? extends ExaminableProperty> examinableProperties() {
+    return Stream.of(
+      ExaminableProperty.of("name", this.name),
+      ExaminableProperty.of("id", this.id)
+    );
+  }
+}
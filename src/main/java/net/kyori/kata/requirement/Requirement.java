@@ -0,0 +1,70 @@
+/*
+ * This file is part of kata, licensed under the MIT License.
+ *
+ * Copyright (c) 2018 KyoriPowered
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.kyori.kata.requirement;
+
+import net.kyori.kata.context.CommandContext;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+import java.util.function.Predicate;
+
+/**
+ * A requirement which is satisfied when a context has a set of {@link Capability capabilities}.
+ *
+ * <p>Unlike an arbitrary predicate, a requirement can be checked by the dispatcher without being called:
+ * the capabilities of a node are compared against the {@link CommandContext#capabilities() capabilities
+ * of a context} one word at a time.</p>
+ */
+public interface Requirement extends Predicate<CommandContext> {
+  /**
+   * Creates a requirement which is satisfied when a context has all of {@code capabilities}.
+   *
+   * @param capabilities the capabilities
+   * @return the requirement
+   */
+  static @NonNull Requirement of(final @NonNull Capability... capabilities) {
+    return of(Capabilities.of(capabilities));
+  }
+
+  /**
+   * Creates a requirement which is satisfied when a context has all of {@code capabilities}.
+   *
+   * @param capabilities the capabilities
+   * @return the requirement
+   */
+  static @NonNull Requirement of(final @NonNull Capabilities capabilities) {
+    return () -> capabilities;
+  }
+
+  /**
+   * Gets the capabilities a context must have.
+   *
+   * @return the capabilities
+   */
+  @NonNull Capabilities capabilities();
+
+  @Override
+  default boolean test(final @NonNull CommandContext context) {
+    return context.capabilities().containsAll(this.capabilities());
+  }
+}
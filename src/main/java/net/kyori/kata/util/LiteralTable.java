@@ -0,0 +1,151 @@
+/*
+ * This file is part of kata, licensed under the MIT License.
+ *
+ * Copyright (c) 2018 KyoriPowered
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.kyori.kata.util;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+import java.util.Arrays;
+
+/**
+ * An immutable open-addressing table mapping literals to indices.
+ *
+ * <p>Lookups hash directly over a range of characters, so no substring needs to be created to find a literal.</p>
+ */
+public final class LiteralTable {
+  /**
+   * The value returned when a literal is not present.
+   */
+  public static final int ABSENT = -1;
+  private static final LiteralTable EMPTY = new LiteralTable(new String[1], new int[1], 0);
+  private final String[] keys;
+  private final int[] values;
+  private final int mask;
+  private final int size;
+
+  private LiteralTable(final String[] keys, final int[] values, final int size) {
+    this.keys = keys;
+    this.values = values;
+    this.mask = keys.length - 1;
+    this.size = size;
+  }
+
+  /**
+   * Gets an empty literal table.
+   *
+   * @return an empty literal table
+   */
+  public static @NonNull LiteralTable empty() {
+    return EMPTY;
+  }
+
+  /**
+   * Creates a literal table.
+   *
+   * <p>If a literal appears more than once, the first index is kept.</p>
+   *
+   * @param literals the literals
+   * @param indices the index of each literal
+   * @return a literal table
+   */
+  public static @NonNull LiteralTable of(final @NonNull String[] literals, final int[] indices) {
+    if(literals.length != indices.length) {
+      throw new IllegalArgumentException("Expected " + literals.length + " indices, got " + indices.length);
+    }
+    if(literals.length == 0) {
+      return EMPTY;
+    }
+    int capacity = 2;
+    while(capacity < literals.length * 2) {
+      capacity <<= 1;
+    }
+    final String[] keys = new String[capacity];
+    final int[] values = new int[capacity];
+    Arrays.fill(values, ABSENT);
+    int size = 0;
+    for(int i = 0; i < literals.length; i++) {
+      final String literal = literals[i];
+      int slot = spread(literal.hashCode()) & (capacity - 1);
+      while(keys[slot] != null && !keys[slot].equals(literal)) {
+        slot = (slot + 1) & (capacity - 1);
+      }
+      if(keys[slot] == null) {
+        keys[slot] = literal;
+        values[slot] = indices[i];
+        size++;
+      }
+    }
+    return new LiteralTable(keys, values, size);
+  }
+
+  /**
+   * Gets the number of literals in this table.
+   *
+   * @return the number of literals
+   */
+  public int size() {
+    return this.size;
+  }
+
+  /**
+   * Gets the index of {@code literal}.
+   *
+   * @param literal the literal
+   * @return the index, or {@link #ABSENT}
+   */
+  public int get(final @NonNull String literal) {
+    return this.get(literal, 0, literal.length());
+  }
+
+  /**
+   * Gets the index of the literal found between {@code start} and {@code end} in {@code string}.
+   *
+   * @param string the string
+   * @param start the start index, inclusive
+   * @param end the end index, exclusive
+   * @return the index, or {@link #ABSENT}
+   */
+  public int get(final @NonNull String string, final int start, final int end) {
+    if(this.size == 0) {
+      return ABSENT;
+    }
+    int hash = 0;
+    for(int i = start; i < end; i++) {
+      hash = 31 * hash + string.charAt(i);
+    }
+    final int length = end - start;
+    int slot = spread(hash) & this.mask;
+    String key;
+    while((key = this.keys[slot]) != null) {
+      if(key.length() == length && string.regionMatches(start, key, 0, length)) {
+        return this.values[slot];
+      }
+      slot = (slot + 1) & this.mask;
+    }
+    return ABSENT;
+  }
+
+  private static int spread(final int hash) {
+    return hash ^ (hash >>> 16);
+  }
+}
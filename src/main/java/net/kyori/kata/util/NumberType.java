@@ -26,7 +26,6 @@ package net.kyori.kata.util;
 import org.checkerframework.checker.nullness.qual.NonNull;
 
 import java.util.function.Function;
-import java.util.function.IntPredicate;
 
 /**
  * A number type.
@@ -34,8 +33,8 @@ import java.util.function.IntPredicate;
  * @param <N> the number type
  */
 public final class NumberType<N extends Number> {
-  private static final IntPredicate ALLOWED = character -> character >= '0' && character <= '9' || character == '+' || character == '-';
-  private static final IntPredicate ALLOWED_FLOATING = character -> character >= '0' && character <= '9' || character == '+' || character == '-' || character == '.' || character == 'e' || character == 'E';
+  private static final boolean[] ALLOWED = table("0123456789+-");
+  private static final boolean[] ALLOWED_FLOATING = table("0123456789+-.eE");
 
   public static final NumberType<Byte> BYTE = new NumberType<>("byte", ALLOWED, Byte::parseByte);
   public static final NumberType<Double> DOUBLE = new NumberType<>("double", ALLOWED_FLOATING, Double::parseDouble);
@@ -45,10 +44,10 @@ public final class NumberType<N extends Number> {
   public static final NumberType<Short> SHORT = new NumberType<>("short", ALLOWED, Short::parseShort);
 
   private final String name;
-  private final IntPredicate allowed;
+  private final boolean[] allowed;
   private final Function<String, N> parser;
 
-  private NumberType(final String name, final IntPredicate allowed, final Function<String, N> parser) {
+  private NumberType(final String name, final boolean[] allowed, final Function<String, N> parser) {
     this.name = name;
     this.allowed = allowed;
     this.parser = parser;
@@ -70,7 +69,7 @@ public final class NumberType<N extends Number> {
    * @return {@code true} if {@code character} can be part of the number, {@code false} otherwise
    */
   public boolean allowed(final char character) {
-    return this.allowed.test(character);
+    return character < this.allowed.length && this.allowed[character];
   }
 
   /**
@@ -83,4 +82,12 @@ public final class NumberType<N extends Number> {
   public @NonNull N parse(final String string) throws NumberFormatException {
     return this.parser.apply(string);
   }
+
+  private static boolean[] table(final String characters) {
+    final boolean[] table = new boolean[128];
+    for(int i = 0, length = characters.length(); i < length; i++) {
+      table[characters.charAt(i)] = true;
+    }
+    return table;
+  }
 }
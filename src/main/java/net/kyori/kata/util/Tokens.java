@@ -0,0 +1,197 @@
+/*
+ * This file is part of kata, licensed under the MIT License.
+ *
+ * Copyright (c) 2018 KyoriPowered
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.kyori.kata.util;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * The boundaries of the tokens in a command string.
+ *
+ * <p>Tokens are separated by a single separator character, and may be empty. A token which starts with a
+ * quote extends to its closing quote (skipping escaped characters), so separators inside quotes do not
+ * end it.</p>
+ *
+ * <p>Tokens are found as they are asked for: the string is only scanned as far as the furthest token
+ * asked for, and no character is scanned twice.</p>
+ */
+public final class Tokens {
+  /**
+   * The value returned when no token starts at a position.
+   */
+  public static final int NONE = -1;
+  private static final char ESCAPE = '\\';
+  private static final char QUOTE = '"';
+  private final String string;
+  private final char separator;
+  // start and end of each token found so far, interleaved
+  private int[] bounds;
+  private int count;
+  // the start of the next token to find, or NONE once the whole string has been scanned
+  private int next;
+
+  private Tokens(final String string, final char separator, final int[] bounds) {
+    this.string = string;
+    this.separator = separator;
+    this.bounds = bounds;
+  }
+
+  /**
+   * Splits {@code string} into tokens.
+   *
+   * @param string the string
+   * @param separator the separator
+   * @return the tokens
+   */
+  public static @NonNull Tokens of(final @NonNull String string, final char separator) {
+    return of(string, separator, null);
+  }
+
+  /**
+   * Splits {@code string} into tokens, reusing the storage of {@code previous}.
+   *
+   * <p>{@code previous} must not be used afterwards.</p>
+   *
+   * @param string the string
+   * @param separator the separator
+   * @param previous the tokens to reuse the storage of
+   * @return the tokens
+   */
+  public static @NonNull Tokens of(final @NonNull String string, final char separator, final @Nullable Tokens previous) {
+    return new Tokens(string, separator, previous != null ? previous.bounds : new int[8]);
+  }
+
+  // finds the next token - there must be one
+  private void scan() {
+    final int start = this.next;
+    final String string = this.string;
+    final int length = string.length();
+    int end = start;
+    if(end < length && string.charAt(end) == QUOTE) {
+      end = closingQuote(string, end + 1, length);
+    }
+    end = string.indexOf(this.separator, end);
+    if(end == -1) {
+      end = length;
+    }
+    if(this.count * 2 == this.bounds.length) {
+      this.bounds = Arrays.copyOf(this.bounds, this.bounds.length * 2);
+    }
+    this.bounds[this.count * 2] = start;
+    this.bounds[this.count * 2 + 1] = end;
+    this.count++;
+    this.next = end == length ? NONE : end + 1;
+  }
+
+  // finds tokens until token has been found, or there are no more
+  private void scan(final int token) {
+    while(token >= this.count && this.next != NONE) {
+      this.scan();
+    }
+  }
+
+  private static int closingQuote(final String string, int index, final int length) {
+    while(index < length) {
+      final char character = string.charAt(index++);
+      if(character == ESCAPE) {
+        index++;
+      } else if(character == QUOTE) {
+        return index;
+      }
+    }
+    return length;
+  }
+
+  /**
+   * Gets the number of tokens.
+   *
+   * @return the number of tokens
+   */
+  public int count() {
+    this.scan(Integer.MAX_VALUE);
+    return this.count;
+  }
+
+  /**
+   * Gets the start of a token.
+   *
+   * @param token the token
+   * @return the start index, inclusive
+   */
+  public int start(final int token) {
+    this.scan(token);
+    return this.bounds[token * 2];
+  }
+
+  /**
+   * Gets the end of a token.
+   *
+   * @param token the token
+   * @return the end index, exclusive
+   */
+  public int end(final int token) {
+    this.scan(token);
+    return this.bounds[token * 2 + 1];
+  }
+
+  /**
+   * Gets the token starting at {@code index}.
+   *
+   * @param index the index
+   * @return the token, or {@link #NONE} if no token starts at {@code index}
+   */
+  public int at(final int index) {
+    // every token starting at or before index has been found once the next one starts after it
+    while(this.next != NONE && this.next <= index) {
+      this.scan();
+    }
+    int low = 0;
+    int high = this.count - 1;
+    while(low <= high) {
+      final int middle = (low + high) >>> 1;
+      final int start = this.bounds[middle * 2];
+      if(start < index) {
+        low = middle + 1;
+      } else if(start > index) {
+        high = middle - 1;
+      } else {
+        return middle;
+      }
+    }
+    return NONE;
+  }
+
+  /**
+   * Checks if a token starts with a quote.
+   *
+   * @param token the token
+   * @return {@code true} if the token starts with a quote
+   */
+  public boolean quoted(final int token) {
+    final int start = this.start(token);
+    return start < this.end(token) && this.string.charAt(start) == QUOTE;
+  }
+}
@@ -30,7 +30,9 @@ import net.kyori.kata.exception.CommandException;
 import net.kyori.string.StringReader;
 import org.junit.jupiter.api.Test;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -43,4 +45,26 @@ class BooleanArgumentTypeTest {
     assertFalse(ANY.parse(CommandContext.empty(), StringReader.create("false")));
     assertThrows(BooleanArgumentException.Invalid.class, () -> ANY.parse(CommandContext.empty(), StringReader.create("potato")));
   }
+
+  @Test
+  void testTryParse() {
+    final StringReader reader = StringReader.create("potato");
+    assertEquals(true, ANY.tryParse(CommandContext.empty(), StringReader.create("true")));
+    assertNull(ANY.tryParse(CommandContext.empty(), reader));
+    assertEquals(0, reader.index());
+    final StringReader prefix = StringReader.create("truest");
+    assertNull(ANY.tryParse(CommandContext.empty(), prefix));
+    assertEquals(0, prefix.index());
+    final StringReader word = StringReader.create("false foo");
+    assertEquals(false, ANY.tryParse(CommandContext.empty(), word));
+    assertEquals(5, word.index());
+    assertNull(ANY.tryParse(CommandContext.empty(), StringReader.create("tru")));
+  }
+
+  @Test
+  void testCanStartWith() {
+    assertTrue(ANY.canStartWith('t'));
+    assertTrue(ANY.canStartWith('f'));
+    assertFalse(ANY.canStartWith('x'));
+  }
 }
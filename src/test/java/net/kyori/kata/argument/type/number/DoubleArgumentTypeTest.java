@@ -30,6 +30,8 @@ import net.kyori.kata.exception.CommandException;
 import net.kyori.string.StringReader;
 import org.junit.jupiter.api.Test;
 
+import java.util.Random;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
@@ -74,4 +76,29 @@ class DoubleArgumentTypeTest {
     assertEquals(100d, (double) BETWEEN_90_100.parse(CommandContext.empty(), StringReader.create("100")));
     assertThrows(NumberArgumentException.TooHigh.class, () -> BETWEEN_90_100.parse(CommandContext.empty(), StringReader.create("101")));
   }
+
+  @Test
+  void testParseMatchesJdk() throws CommandException {
+    final String[] strings = {
+      "0", "-0", "+1", "1.", ".5", "0.1", "3.14159", "-273.15", "1e22", "1e23", "9007199254740993",
+      "123456789012345678901234567890", "0.000000000000000000000000001", "1.7976931348623157e308",
+      "4.9e-324", "2.5e-324", "1e-400", "1e400", "12345.6789e-3", "0.30000000000000004", "1E+5"
+    };
+    for(final String string : strings) {
+      assertEquals(Double.valueOf(string), ANY.parse(CommandContext.empty(), StringReader.create(string)), string);
+    }
+    final Random random = new Random(42);
+    for(int i = 0; i < 10000; i++) {
+      final String string = (random.nextInt(2000000) - 1000000) + "." + random.nextInt(100000) + "e" + (random.nextInt(60) - 30);
+      assertEquals(Double.valueOf(string), ANY.parse(CommandContext.empty(), StringReader.create(string)), string);
+    }
+  }
+
+  @Test
+  void testParseInvalid() {
+    assertThrows(NumberArgumentException.Invalid.class, () -> ANY.parse(CommandContext.empty(), StringReader.create("1.2.3")));
+    assertThrows(NumberArgumentException.Invalid.class, () -> ANY.parse(CommandContext.empty(), StringReader.create("1e")));
+    assertThrows(NumberArgumentException.Invalid.class, () -> ANY.parse(CommandContext.empty(), StringReader.create(".")));
+    assertThrows(NumberArgumentException.Invalid.class, () -> ANY.parse(CommandContext.empty(), StringReader.create("1-2")));
+  }
 }
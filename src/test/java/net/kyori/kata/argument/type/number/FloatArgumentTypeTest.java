@@ -30,6 +30,8 @@ import net.kyori.kata.exception.CommandException;
 import net.kyori.string.StringReader;
 import org.junit.jupiter.api.Test;
 
+import java.util.Random;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
@@ -74,4 +76,19 @@ class FloatArgumentTypeTest {
     assertEquals(100f, (float) BETWEEN_90_100.parse(CommandContext.empty(), StringReader.create("100")));
     assertThrows(NumberArgumentException.TooHigh.class, () -> BETWEEN_90_100.parse(CommandContext.empty(), StringReader.create("101")));
   }
+
+  @Test
+  void testParseMatchesJdk() throws CommandException {
+    final String[] strings = {
+      "0", "-0", "0.1", "3.4028235e38", "3.4028236e38", "1.4e-45", "16777217", "1e10", "1e11", "8.589973e9"
+    };
+    for(final String string : strings) {
+      assertEquals(Float.valueOf(string), ANY.parse(CommandContext.empty(), StringReader.create(string)), string);
+    }
+    final Random random = new Random(42);
+    for(int i = 0; i < 10000; i++) {
+      final String string = (random.nextInt(200000) - 100000) + "." + random.nextInt(1000) + "e" + (random.nextInt(30) - 15);
+      assertEquals(Float.valueOf(string), ANY.parse(CommandContext.empty(), StringReader.create(string)), string);
+    }
+  }
 }
@@ -31,6 +31,7 @@ import net.kyori.string.StringReader;
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 class IntArgumentTypeTest {
@@ -71,4 +72,25 @@ class IntArgumentTypeTest {
     assertEquals(100, (int) BETWEEN_90_100.parse(CommandContext.empty(), StringReader.create("100")));
     assertThrows(NumberArgumentException.TooHigh.class, () -> BETWEEN_90_100.parse(CommandContext.empty(), StringReader.create("101")));
   }
+
+  @Test
+  void testTryParse() {
+    final StringReader reader = StringReader.create("101");
+    assertNull(ANY.tryParse(CommandContext.empty(), StringReader.create("potato")));
+    assertNull(MAX_100.tryParse(CommandContext.empty(), reader));
+    assertEquals(0, reader.index());
+    assertEquals(100, (int) BETWEEN_90_100.tryParse(CommandContext.empty(), StringReader.create("100")));
+  }
+
+  @Test
+  void testParseInvalid() throws CommandException {
+    assertThrows(NumberArgumentException.Invalid.class, () -> ANY.parse(CommandContext.empty(), StringReader.create("2147483648")));
+    assertThrows(NumberArgumentException.Invalid.class, () -> ANY.parse(CommandContext.empty(), StringReader.create("-2147483649")));
+    assertThrows(NumberArgumentException.Invalid.class, () -> ANY.parse(CommandContext.empty(), StringReader.create("1-2")));
+    assertThrows(NumberArgumentException.Invalid.class, () -> ANY.parse(CommandContext.empty(), StringReader.create("+")));
+    assertEquals(5, (int) ANY.parse(CommandContext.empty(), StringReader.create("+5")));
+    final StringReader reader = StringReader.create("99999999999 foo");
+    assertNull(ANY.tryParse(CommandContext.empty(), reader));
+    assertEquals(0, reader.index());
+  }
 }
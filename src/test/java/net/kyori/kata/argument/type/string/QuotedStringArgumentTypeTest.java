@@ -30,6 +30,7 @@ import net.kyori.string.StringReader;
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 class QuotedStringArgumentTypeTest {
@@ -39,6 +40,16 @@ class QuotedStringArgumentTypeTest {
     assertEquals("foo bar: \"", StringArgumentType.quoted().parse(CommandContext.empty(), StringReader.create("\"foo bar: \\\"\"")));
   }
 
+  @Test
+  void testParse_withoutEscapes() throws CommandException {
+    final StringReader reader = StringReader.create("\"foo\" \"\" bar");
+    assertEquals("foo", StringArgumentType.quoted().parse(CommandContext.empty(), reader));
+    assertEquals(5, reader.index());
+    reader.skip();
+    assertEquals("", StringArgumentType.quoted().parse(CommandContext.empty(), reader));
+    assertEquals(8, reader.index());
+  }
+
   @Test
   void testParse_missingStartOfQuote() {
     assertThrows(StringArgumentException.ExpectedStartOfQuote.class, () -> StringArgumentType.quoted().parse(CommandContext.empty(), StringReader.create("foo")));
@@ -46,11 +57,21 @@ class QuotedStringArgumentTypeTest {
 
   @Test
   void testParse_invalidEscape() {
-    assertThrows(StringArgumentException.InvalidEscapeSequence.class, () -> StringArgumentType.quoted().parse(CommandContext.empty(), StringReader.create("\"\\foo")));
+    final StringArgumentException.InvalidEscapeSequence exception = assertThrows(StringArgumentException.InvalidEscapeSequence.class, () -> StringArgumentType.quoted().parse(CommandContext.empty(), StringReader.create("\"\\foo")));
+    assertEquals('f', exception.escape());
   }
 
   @Test
   void testParse_missingEndOfQuote() {
     assertThrows(StringArgumentException.ExpectedEndOfQuote.class, () -> StringArgumentType.quoted().parse(CommandContext.empty(), StringReader.create("\"foo bar")));
+    assertThrows(StringArgumentException.ExpectedEndOfQuote.class, () -> StringArgumentType.quoted().parse(CommandContext.empty(), StringReader.create("\"foo\\")));
+  }
+
+  @Test
+  void testTryParse() {
+    assertEquals("foo bar", StringArgumentType.quoted().tryParse(CommandContext.empty(), StringReader.create("\"foo bar\"")));
+    assertNull(StringArgumentType.quoted().tryParse(CommandContext.empty(), StringReader.create("foo")));
+    assertNull(StringArgumentType.quoted().tryParse(CommandContext.empty(), StringReader.create("\"\\foo")));
+    assertNull(StringArgumentType.quoted().tryParse(CommandContext.empty(), StringReader.create("\"foo bar")));
   }
 }
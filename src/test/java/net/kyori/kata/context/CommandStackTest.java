@@ -0,0 +1,119 @@
+/*
+ * This file is part of kata, licensed under the MIT License.
+ *
+ * Copyright (c) 2018 KyoriPowered
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.kyori.kata.context;
+
+import net.kyori.kata.argument.Argument;
+import net.kyori.kata.argument.type.number.DoubleArgumentType;
+import net.kyori.kata.argument.type.number.IntArgumentType;
+import net.kyori.kata.argument.type.number.LongArgumentType;
+import net.kyori.kata.argument.type.string.StringArgumentType;
+import net.kyori.lambda.Maybe;
+import net.kyori.string.StringRange;
+import net.kyori.string.StringReader;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CommandStackTest {
+  private static final Argument<String> FOO = StringArgumentType.word("foo");
+  private static final Argument<String> BAR = StringArgumentType.word("bar");
+
+  @Test
+  void testRollback() {
+    final CommandStack.Builder builder = CommandStack.builder(StringReader.create("abc def"), CommandContext.empty());
+    builder.argument(FOO, StringRange.between(0, 3), "abc");
+    final int checkpoint = builder.checkpoint();
+    builder.argument(BAR, StringRange.between(4, 7), "def");
+    builder.flag(StringRange.between(8, 10), 'b');
+    final CommandStack copy = builder.copy().build();
+    builder.rollback(checkpoint);
+    final CommandStack stack = builder.build();
+    assertEquals("abc", stack.arguments().require(FOO));
+    assertEquals("none", stack.arguments().get(BAR, "none"));
+    assertFalse(stack.flags().has('b'));
+    assertEquals("def", copy.arguments().require(BAR));
+    assertTrue(copy.flags().has('b'));
+  }
+
+  @Test
+  void testRollback_invalid() {
+    final CommandStack.Builder builder = CommandStack.builder(StringReader.create(""), CommandContext.empty());
+    assertThrows(IllegalArgumentException.class, () -> builder.rollback(1));
+  }
+
+  @Test
+  void testArguments() {
+    final CommandStack.Builder builder = CommandStack.builder(StringReader.create("abc def"), CommandContext.empty());
+    builder.argument(FOO, StringRange.between(0, 3), "abc");
+    builder.literal(StringRange.between(4, 7));
+    builder.argument(FOO, StringRange.between(8, 11), "ghi");
+    final CommandArguments arguments = builder.build().arguments();
+    assertEquals("ghi", arguments.require(FOO));
+    assertEquals("ghi", arguments.require(StringArgumentType.word("foo")));
+    assertNull(arguments.get(BAR));
+    assertEquals(Maybe.nothing(), arguments.find(BAR));
+    assertThrows(IllegalArgumentException.class, () -> arguments.require(BAR));
+  }
+
+  @Test
+  void testPrimitiveArguments() {
+    final Argument<Integer> i = Argument.of("i", IntArgumentType.any());
+    final Argument<Long> l = Argument.of("l", LongArgumentType.any());
+    final Argument<Double> d = Argument.of("d", DoubleArgumentType.any());
+    final Argument<Integer> absent = Argument.of("absent", IntArgumentType.any());
+    final CommandStack.Builder builder = CommandStack.builder(StringReader.create("1 2 3.5"), CommandContext.empty());
+    builder.intArgument(i, StringRange.between(0, 1), 1);
+    builder.longArgument(l, StringRange.between(2, 3), 2L);
+    builder.doubleArgument(d, StringRange.between(4, 7), 3.5);
+    final CommandArguments arguments = builder.build().arguments();
+    assertEquals(1, arguments.getInt(i));
+    assertEquals(2L, arguments.getLong(l));
+    assertEquals(3.5, arguments.getDouble(d));
+    assertEquals(Integer.valueOf(1), arguments.require(i));
+    assertEquals(Double.valueOf(3.5), arguments.require(d));
+    assertEquals(42, arguments.getInt(absent, 42));
+    assertThrows(IllegalArgumentException.class, () -> arguments.getInt(absent));
+  }
+
+  @Test
+  void testFlags() {
+    final CommandStack.Builder builder = CommandStack.builder(StringReader.create("-az\u00e9 --name"), CommandContext.empty());
+    builder.flag(StringRange.between(0, 4), 'a');
+    builder.flag(StringRange.between(0, 4), 'z');
+    builder.flag(StringRange.between(0, 4), '\u00e9');
+    builder.flag(StringRange.between(5, 11), "name");
+    final CommandFlags flags = builder.build().flags();
+    assertTrue(flags.has('a'));
+    assertTrue(flags.has('z'));
+    assertTrue(flags.has('\u00e9'));
+    assertTrue(flags.has("name"));
+    assertFalse(flags.has('b'));
+    assertFalse(flags.has('A'));
+    assertFalse(flags.has("a"));
+  }
+}
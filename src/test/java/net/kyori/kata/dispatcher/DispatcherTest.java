@@ -24,20 +24,53 @@
 package net.kyori.kata.dispatcher;
 
 import net.kyori.kata.argument.Argument;
+import net.kyori.kata.argument.ArgumentType;
+import net.kyori.kata.argument.exception.NumberArgumentException;
+import net.kyori.kata.argument.exception.StringArgumentException;
+import net.kyori.kata.argument.type.number.IntArgumentType;
 import net.kyori.kata.argument.type.string.StringArgumentType;
 import net.kyori.kata.context.CommandContext;
+import net.kyori.kata.context.CommandStack;
 import net.kyori.kata.exception.CommandException;
+import net.kyori.kata.node.ChildNode;
+import net.kyori.kata.node.ExecutableNode;
+import net.kyori.kata.node.LiteralNode;
+import net.kyori.kata.requirement.Capabilities;
+import net.kyori.kata.requirement.Capability;
+import net.kyori.kata.requirement.Requirement;
+import net.kyori.string.StringReader;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
 
 import static com.google.common.truth.Truth.assertThat;
 import static net.kyori.kata.node.Node.argument;
 import static net.kyori.kata.node.Node.flag;
 import static net.kyori.kata.node.Node.literal;
+import static net.kyori.kata.node.Node.longFlag;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -68,6 +101,34 @@ class DispatcherTest {
     assertTrue(hasFlag.get());
   }
 
+  @Test
+  void testCombinedAndLongFlags() throws CommandException {
+    final Argument<String> word = StringArgumentType.word("word");
+    final AtomicReference<CommandStack> last = new AtomicReference<>();
+    this.dispatcher.register(
+      literal("foo")
+        .then(flag('a'))
+        .then(flag('b'))
+        .then(longFlag("verbose"))
+        .then(argument(word).executes(last::set))
+        .executes(last::set)
+    );
+    this.dispatcher.execute("foo -ab", CommandContext.empty());
+    assertTrue(last.get().flags().has('a'));
+    assertTrue(last.get().flags().has('b'));
+    assertFalse(last.get().flags().has("verbose"));
+    this.dispatcher.execute("foo -a --verbose bar", CommandContext.empty());
+    assertTrue(last.get().flags().has('a'));
+    assertFalse(last.get().flags().has('b'));
+    assertTrue(last.get().flags().has("verbose"));
+    assertEquals("bar", last.get().arguments().require(word));
+    // tokens which are not made up of known flags are left to the arguments
+    this.dispatcher.execute("foo -ax", CommandContext.empty());
+    assertFalse(last.get().flags().has('a'));
+    assertEquals("-ax", last.get().arguments().require(word));
+    assertThrows(CommandException.class, () -> this.dispatcher.execute("foo -a --verbosity x", CommandContext.empty()));
+  }
+
   @Test
   void testUnknownArgument() {
     this.dispatcher.register(literal("foo"));
@@ -133,4 +194,575 @@ class DispatcherTest {
     this.dispatcher.execute("baz \"a thing\"", CommandContext.empty());
     assertEquals(3, executions.get());
   }
+
+  @Test
+  void testCompiledRegisterAndExecute() throws CommandException {
+    final AtomicInteger fooExecutions = new AtomicInteger();
+    final AtomicInteger barExecutions = new AtomicInteger();
+    this.dispatcher.register(literal("foo").executes(stack -> fooExecutions.incrementAndGet())).compile();
+    this.dispatcher.execute("foo", CommandContext.empty());
+    assertEquals(1, fooExecutions.get());
+    this.dispatcher.register(literal("bar").executes(stack -> barExecutions.incrementAndGet()));
+    this.dispatcher.execute("bar", CommandContext.empty());
+    this.dispatcher.execute("foo", CommandContext.empty());
+    assertEquals(2, fooExecutions.get());
+    assertEquals(1, barExecutions.get());
+  }
+
+  @Test
+  void testCompiledModifiedNode() throws CommandException {
+    final AtomicInteger executions = new AtomicInteger();
+    this.dispatcher.register(literal("foo"), (dispatcher, node) -> {
+      dispatcher.compile();
+      node.add(literal("bar").executes(stack -> executions.incrementAndGet()));
+    });
+    this.dispatcher.execute("foo bar", CommandContext.empty());
+    assertEquals(1, executions.get());
+    this.dispatcher.root().remove("foo");
+    assertThrows(DispatcherException.UnknownCommand.class, () -> this.dispatcher.execute("foo bar", CommandContext.empty()));
+  }
+
+  @Test
+  void testRecompileReusesSegments() throws CommandException {
+    final AtomicInteger executions = new AtomicInteger();
+    for(int i = 0; i < 3000; i++) {
+      this.dispatcher.register(literal("c" + i).then(literal("run").executes(stack -> executions.incrementAndGet())));
+    }
+    this.dispatcher.register(literal("alias").redirect((ExecutableNode) this.dispatcher.root().children().iterator().next()));
+    this.dispatcher.execute("c2999 run", CommandContext.empty());
+    this.dispatcher.execute("alias run", CommandContext.empty());
+    assertEquals(2, executions.get());
+    // removing most commands frees most pages, moving the remaining segments down
+    for(int i = 0; i < 3000; i++) {
+      if(i % 3 != 1) {
+        this.dispatcher.root().remove("c" + i);
+      }
+    }
+    this.dispatcher.execute("c2998 run", CommandContext.empty());
+    this.dispatcher.execute("alias run", CommandContext.empty());
+    assertEquals(4, executions.get());
+    assertThrows(DispatcherException.UnknownCommand.class, () -> this.dispatcher.execute("c2999 run", CommandContext.empty()));
+  }
+
+  @Test
+  void testRedirectToReplacedCommand() throws CommandException {
+    final AtomicInteger first = new AtomicInteger();
+    final AtomicInteger second = new AtomicInteger();
+    this.dispatcher.register(literal("foo").executes(stack -> first.incrementAndGet()));
+    this.dispatcher.register(literal("bar").redirect((ExecutableNode) this.dispatcher.root().child("foo")));
+    this.dispatcher.execute("bar", CommandContext.empty());
+    this.dispatcher.root().remove("foo");
+    this.dispatcher.register(literal("foo").executes(stack -> second.incrementAndGet()));
+    // the redirect still leads to the node it was registered with
+    this.dispatcher.execute("bar", CommandContext.empty());
+    this.dispatcher.execute("foo", CommandContext.empty());
+    assertEquals(2, first.get());
+    assertEquals(1, second.get());
+  }
+
+  @Test
+  void testModifiedWhileRegistering() throws CommandException {
+    final AtomicInteger executions = new AtomicInteger();
+    this.dispatcher.register(literal("bar").executes(stack -> {}));
+    this.dispatcher.register(literal("foo"), (dispatcher, foo) -> {
+      // other commands modified while foo is being registered are not left out of parses
+      dispatcher.root().child("bar").add(literal("baz").executes(stack -> executions.incrementAndGet()));
+      try {
+        dispatcher.execute("bar baz", CommandContext.empty());
+      } catch(final CommandException e) {
+        throw new AssertionError(e);
+      }
+    });
+    assertEquals(1, executions.get());
+  }
+
+  @Test
+  void testRepairsAreBounded() throws CommandException {
+    final AtomicInteger parses = new AtomicInteger();
+    final AtomicInteger executions = new AtomicInteger();
+    // modifies its own node every time it is parsed, so every parse finds that node modified
+    final ArgumentType<String> modifying = (context, reader) -> {
+      this.dispatcher.root().child("foo").child("value").add(literal("y" + parses.incrementAndGet()));
+      return StringArgumentType.word().parse(context, reader);
+    };
+    this.dispatcher.register(literal("foo").then(argument(modifying.create("value")).then(literal("x").executes(stack -> executions.incrementAndGet()))));
+    this.dispatcher.execute("foo bar x", CommandContext.empty());
+    assertEquals(1, executions.get());
+    assertTrue(parses.get() > 1);
+  }
+
+  @Test
+  void testTryParse() {
+    this.dispatcher.register(literal("foo").then(literal("bar")).then(argument(THING)));
+    final ParseOutcome success = this.dispatcher.tryParse("foo bar", CommandContext.empty());
+    assertTrue(success.successful());
+    assertEquals("bar", success.result().node().name());
+
+    final ParseOutcome unknownCommand = this.dispatcher.tryParse("baz", CommandContext.empty());
+    assertEquals(ParseOutcome.Failure.UNKNOWN_COMMAND, unknownCommand.failure());
+    assertEquals(0, unknownCommand.position());
+    assertThat(unknownCommand.expected()).hasSize(1);
+
+    final ParseOutcome invalidArgument = this.dispatcher.tryParse("foo baz", CommandContext.empty());
+    assertEquals(ParseOutcome.Failure.INVALID_ARGUMENT, invalidArgument.failure());
+    assertEquals(4, invalidArgument.position());
+    assertThat(invalidArgument.expected()).hasSize(2);
+    assertThrows(StringArgumentException.ExpectedStartOfQuote.class, invalidArgument::orThrow);
+  }
+
+  @Test
+  void testTryParse_lazyException() {
+    final AtomicInteger thrown = new AtomicInteger();
+    final ArgumentType<String> type = new ArgumentType<String>() {
+      @Override
+      public @NonNull String parse(final @NonNull CommandContext context, final @NonNull StringReader reader) throws CommandException {
+        thrown.incrementAndGet();
+        throw new DispatcherException.UnknownArgument(reader);
+      }
+
+      @Override
+      public @Nullable String tryParse(final @NonNull CommandContext context, final @NonNull StringReader reader) {
+        return null;
+      }
+    };
+    this.dispatcher.register(literal("foo").then(argument(type.create("thing"))));
+    final ParseOutcome outcome = this.dispatcher.tryParse("foo bar", CommandContext.empty());
+    assertEquals(ParseOutcome.Failure.INVALID_ARGUMENT, outcome.failure());
+    assertEquals(4, outcome.position());
+    assertEquals(0, thrown.get());
+    assertTrue(outcome.exception() instanceof DispatcherException.UnknownArgument);
+    assertEquals(1, thrown.get());
+  }
+
+  @Test
+  void testExceptionIsStackless() {
+    final CommandException exception = assertThrows(DispatcherException.UnknownCommand.class, () -> this.dispatcher.execute("foo", CommandContext.empty()));
+    assertEquals(0, exception.getStackTrace().length);
+    assertEquals("Unknown command at position 0: ''", exception.getMessage());
+  }
+
+  @Test
+  void testBacktrackingArguments() throws CommandException {
+    final Argument<Integer> number = IntArgumentType.any("number");
+    final Argument<String> word = StringArgumentType.word("word");
+    final AtomicInteger numbers = new AtomicInteger();
+    final AtomicInteger words = new AtomicInteger();
+    this.dispatcher.register(literal("foo")
+      .then(argument(number).executes(stack -> numbers.incrementAndGet()))
+      .then(argument(word).executes(stack -> words.incrementAndGet())));
+    this.dispatcher.execute("foo 5", CommandContext.empty());
+    this.dispatcher.execute("foo abc", CommandContext.empty());
+    this.dispatcher.execute("foo 5abc", CommandContext.empty());
+    assertEquals(1, numbers.get());
+    assertEquals(2, words.get());
+  }
+
+  @Test
+  void testBacktrackingArgumentsFailure() {
+    this.dispatcher.register(literal("foo")
+      .then(argument(IntArgumentType.any("number")))
+      .then(argument(THING)));
+    final ParseOutcome outcome = this.dispatcher.tryParse("foo abc", CommandContext.empty());
+    assertEquals(ParseOutcome.Failure.INVALID_ARGUMENT, outcome.failure());
+    assertThrows(NumberArgumentException.Expected.class, outcome::orThrow);
+  }
+
+  @Test
+  void testLookahead() throws CommandException {
+    final AtomicInteger attempts = new AtomicInteger();
+    final ArgumentType<String> letter = new ArgumentType<String>() {
+      @Override
+      public @NonNull String parse(final @NonNull CommandContext context, final @NonNull StringReader reader) throws CommandException {
+        attempts.incrementAndGet();
+        return String.valueOf(reader.next());
+      }
+
+      @Override
+      public boolean canStartWith(final char character) {
+        return character >= 'a' && character <= 'z';
+      }
+    };
+    final AtomicInteger numbers = new AtomicInteger();
+    this.dispatcher.register(literal("foo")
+      .then(argument(IntArgumentType.any("number")).executes(stack -> numbers.incrementAndGet()))
+      .then(argument(letter.create("letter"))));
+    this.dispatcher.execute("foo 5", CommandContext.empty());
+    assertEquals(0, attempts.get());
+    assertEquals(1, numbers.get());
+    assertThrows(NumberArgumentException.Expected.class, () -> this.dispatcher.execute("foo #", CommandContext.empty()));
+  }
+
+  @Test
+  void testCache() throws CommandException {
+    final Dispatcher dispatcher = Dispatcher.builder().cache(16).build();
+    final AtomicInteger attempts = new AtomicInteger();
+    final ArgumentType<Integer> counting = (context, reader) -> {
+      attempts.incrementAndGet();
+      return IntArgumentType.any().parse(context, reader);
+    };
+    final CommandContext.Key<Boolean> allowed = CommandContext.key(Boolean.class, "allowed");
+    final AtomicInteger executions = new AtomicInteger();
+    dispatcher.register(literal("foo")
+      .then(argument(counting.create("number")).requires(context -> context.get(allowed) != null).executes(stack -> executions.incrementAndGet())));
+    final CommandContext context = CommandContext.builder().put(allowed, true).build();
+    dispatcher.execute("foo 5", context);
+    dispatcher.execute("foo 5", context);
+    assertEquals(1, attempts.get());
+    assertEquals(2, executions.get());
+
+    // a context failing the requirement does not reuse the cached result
+    assertEquals(ParseOutcome.Failure.UNKNOWN_ARGUMENT, dispatcher.tryParse("foo 5", CommandContext.empty()).failure());
+    dispatcher.execute("foo 5", context);
+    assertEquals(1, attempts.get());
+
+    // modifying the tree invalidates the cache
+    dispatcher.register(literal("bar"));
+    dispatcher.execute("foo 5", context);
+    assertEquals(2, attempts.get());
+    dispatcher.root().children().iterator().next().add(literal("baz"));
+    dispatcher.execute("foo 5", context);
+    assertEquals(3, attempts.get());
+    assertEquals(5, executions.get());
+  }
+
+  @Test
+  void testCacheComparesCapabilities() throws CommandException {
+    final Capability admin = Capability.of("admin");
+    final Capability owner = Capability.of("owner");
+    final Dispatcher dispatcher = Dispatcher.builder().cache(16).build();
+    final AtomicInteger attempts = new AtomicInteger();
+    final ArgumentType<Integer> counting = (context, reader) -> {
+      attempts.incrementAndGet();
+      return IntArgumentType.any().parse(context, reader);
+    };
+    dispatcher.register(literal("foo").requires(Requirement.of(admin))
+      .then(argument(counting.create("number")).executes(stack -> {})));
+    dispatcher.execute("foo 5", CommandContext.builder().capabilities(Capabilities.of(admin)).build());
+    dispatcher.execute("foo 5", CommandContext.builder().capabilities(Capabilities.of(admin)).build());
+    assertEquals(1, attempts.get());
+    // other capabilities which still pass the requirement reuse the cached result
+    dispatcher.execute("foo 5", CommandContext.builder().capabilities(Capabilities.of(admin, owner)).build());
+    assertEquals(1, attempts.get());
+    assertThrows(DispatcherException.UnknownCommand.class, () -> dispatcher.execute("foo 5", CommandContext.builder().capabilities(Capabilities.of(owner)).build()));
+    assertEquals(1, attempts.get());
+  }
+
+  @Test
+  void testRequirementsMemoized() throws CommandException {
+    final AtomicInteger tests = new AtomicInteger();
+    final Predicate<CommandContext> requirement = context -> {
+      tests.incrementAndGet();
+      return true;
+    };
+    this.dispatcher.register(literal("foo")
+      .requires(requirement)
+      .then(literal("bar").requires(requirement))
+      .then(argument(THING).requires(requirement))
+      .then(argument(IntArgumentType.any("number")).requires(requirement).executes(stack -> {})));
+    this.dispatcher.execute("foo 5", CommandContext.empty());
+    assertEquals(1, tests.get());
+    this.dispatcher.usage(this.dispatcher.root(), CommandContext.empty());
+    assertEquals(2, tests.get());
+  }
+
+  @Test
+  void testRequirementCache() throws CommandException {
+    final Dispatcher dispatcher = Dispatcher.builder().requirementCache(1, TimeUnit.MINUTES).build();
+    final AtomicInteger tests = new AtomicInteger();
+    dispatcher.register(literal("foo").requires(context -> tests.incrementAndGet() > 0).executes(stack -> {}));
+    final CommandContext context = CommandContext.builder().build();
+    dispatcher.execute("foo", context);
+    dispatcher.execute("foo", context);
+    assertEquals(1, tests.get());
+    dispatcher.execute("foo", CommandContext.builder().build());
+    assertEquals(2, tests.get());
+  }
+
+  @Test
+  void testCapabilityRequirement() throws CommandException {
+    final Capability admin = Capability.of("admin");
+    final AtomicInteger executions = new AtomicInteger();
+    this.dispatcher.register(literal("foo").requires(Requirement.of(admin)).executes(stack -> executions.incrementAndGet()));
+    assertThrows(DispatcherException.UnknownCommand.class, () -> this.dispatcher.execute("foo", CommandContext.empty()));
+    assertThat(this.dispatcher.usage(this.dispatcher.root(), CommandContext.empty())).isEmpty();
+    final CommandContext context = CommandContext.builder().capabilities(Capabilities.of(admin)).build();
+    this.dispatcher.execute("foo", context);
+    assertEquals(1, executions.get());
+    assertThat(this.dispatcher.usage(this.dispatcher.root(), context)).hasSize(1);
+  }
+
+  @Test
+  void testUsage() throws IOException {
+    this.dispatcher.register(literal("foo")
+      .then(literal("a").then(argument(THING).executes(stack -> {})))
+      .then(literal("b").executes(stack -> {}).then(argument(IntArgumentType.any("number"))).then(literal("c"))));
+    this.dispatcher.register(literal("bar").executes(stack -> {}).then(literal("x").requires(context -> false)).then(flag('f')));
+    this.dispatcher.register(literal("baz").redirect((ExecutableNode) this.dispatcher.root().children().iterator().next()));
+    final Map<ChildNode, String> usage = this.dispatcher.usage(this.dispatcher.root(), CommandContext.empty());
+    assertThat(usage.values()).containsExactly("foo (a|b)", "bar [-f]", "baz -> foo").inOrder();
+    assertThat(this.dispatcher.usage(this.dispatcher.root().children().iterator().next(), CommandContext.empty()).values()).containsExactly("a <thing>", "b [<number>|c]").inOrder();
+
+    final StringBuilder builder = new StringBuilder();
+    this.dispatcher.usage(this.dispatcher.root(), CommandContext.empty(), builder);
+    assertEquals("foo (a|b)\nbar [-f]\nbaz -> foo\n", builder.toString());
+  }
+
+  @Test
+  void testUsageInvalidated() {
+    final CommandContext.Key<Boolean> key = CommandContext.key(Boolean.class, "allowed");
+    final CommandContext context = CommandContext.builder().put(key, true).build();
+    final LiteralNode foo = literal("foo").then(literal("a")).then(literal("b").requires(ctx -> ctx.get(key) != null)).build();
+    this.dispatcher.register(foo);
+    assertEquals("foo a", this.dispatcher.usage(this.dispatcher.root(), CommandContext.empty()).get(foo));
+    assertEquals("foo (a|b)", this.dispatcher.usage(this.dispatcher.root(), context).get(foo));
+    assertEquals("foo a", this.dispatcher.usage(this.dispatcher.root(), CommandContext.empty()).get(foo));
+    foo.remove("a");
+    assertEquals("foo", this.dispatcher.usage(this.dispatcher.root(), CommandContext.empty()).get(foo));
+    assertEquals("foo b", this.dispatcher.usage(this.dispatcher.root(), context).get(foo));
+  }
+
+  @Test
+  void testPrimitiveArguments() throws CommandException {
+    final Argument<Integer> number = IntArgumentType.between("number", 0, 10);
+    final AtomicInteger total = new AtomicInteger();
+    this.dispatcher.register(literal("add").then(argument(number).executes(stack -> total.addAndGet(stack.arguments().getInt(number)))));
+    this.dispatcher.execute("add 3", CommandContext.empty());
+    this.dispatcher.execute("add 4", CommandContext.empty());
+    assertEquals(7, total.get());
+    assertThrows(NumberArgumentException.TooHigh.class, () -> this.dispatcher.execute("add 11", CommandContext.empty()));
+  }
+
+  @Test
+  void testAmbiguity() throws CommandException {
+    assertEquals("greedy", this.ambiguous(Dispatcher.Ambiguity.FIRST, "say a b c"));
+    assertEquals("words", this.ambiguous(Dispatcher.Ambiguity.LONGEST, "say a b c"));
+    assertEquals("words", this.ambiguous(Dispatcher.Ambiguity.PRIORITY, "say a b c"));
+    // a literal which matches is always preferred over arguments of the same node
+    assertEquals("literal", this.ambiguous(Dispatcher.Ambiguity.LONGEST, "say a now c"));
+    assertEquals("words", this.prioritized(Dispatcher.Ambiguity.FIRST));
+    assertEquals("words", this.prioritized(Dispatcher.Ambiguity.LONGEST));
+    assertEquals("literal", this.prioritized(Dispatcher.Ambiguity.PRIORITY));
+  }
+
+  private String prioritized(final Dispatcher.Ambiguity ambiguity) throws CommandException {
+    final Dispatcher dispatcher = Dispatcher.builder().ambiguity(ambiguity).build();
+    final AtomicReference<String> branch = new AtomicReference<>();
+    dispatcher.register(literal("say")
+      .then(argument(StringArgumentType.word("a"))
+        .then(argument(StringArgumentType.word("b"))
+          .then(argument(StringArgumentType.word("c"))
+            .then(argument(StringArgumentType.word("d")).executes(stack -> branch.set("words"))))))
+      .then(argument(StringArgumentType.word("e"))
+        .then(literal("now")
+          .then(argument(StringArgumentType.greedy("text")).executes(stack -> branch.set("literal"))))));
+    dispatcher.execute("say a now c d", CommandContext.empty());
+    return branch.get();
+  }
+
+  private String ambiguous(final Dispatcher.Ambiguity ambiguity, final String input) throws CommandException {
+    final Dispatcher dispatcher = Dispatcher.builder().ambiguity(ambiguity).build();
+    final AtomicReference<String> branch = new AtomicReference<>();
+    dispatcher.register(literal("say")
+      .then(argument(StringArgumentType.greedy("text")).executes(stack -> branch.set("greedy")))
+      .then(argument(StringArgumentType.word("a"))
+        .then(argument(StringArgumentType.word("b"))
+          .then(argument(StringArgumentType.word("c")).executes(stack -> branch.set("words"))))
+        .then(literal("now")
+          .then(argument(StringArgumentType.word("c")).executes(stack -> branch.set("literal"))))));
+    dispatcher.execute(input, CommandContext.empty());
+    return branch.get();
+  }
+
+  @Test
+  void testLongestCountsNodes() throws CommandException {
+    assertEquals("literal", this.flagged(true));
+    assertEquals("flags", this.flagged(false));
+  }
+
+  // both branches match three nodes, but the combined flags add more to the stack than the literal
+  private String flagged(final boolean literalFirst) throws CommandException {
+    final Dispatcher dispatcher = Dispatcher.builder().ambiguity(Dispatcher.Ambiguity.LONGEST).build();
+    final AtomicReference<String> branch = new AtomicReference<>();
+    final ChildNode.Builder<?, ?> literal = argument(StringArgumentType.word("a"))
+      .then(literal("-ab").executes(stack -> branch.set("literal")));
+    final ChildNode.Builder<?, ?> flags = argument(StringArgumentType.word("b"))
+      .then(flag('a'))
+      .then(flag('b'))
+      .executes(stack -> branch.set("flags"));
+    dispatcher.register(literalFirst ? literal("x").then(literal).then(flags) : literal("x").then(flags).then(literal));
+    dispatcher.execute("x foo -ab", CommandContext.empty());
+    return branch.get();
+  }
+
+  @Test
+  void testLongRedirectChain() throws CommandException {
+    final AtomicInteger executions = new AtomicInteger();
+    final Dispatcher dispatcher = Dispatcher.builder().maxDepth(100_000).maxRedirects(100_000).build();
+    dispatcher.register(literal("run").then(literal("say").executes(stack -> executions.incrementAndGet())), node -> node.add(literal("again").redirect(node).build()));
+    final StringBuilder input = new StringBuilder("run");
+    for(int i = 0; i < 20_000; i++) {
+      input.append(" again");
+    }
+    input.append(" say");
+    dispatcher.execute(input.toString(), CommandContext.empty());
+    assertEquals(1, executions.get());
+  }
+
+  @Test
+  void testMaxRedirects() throws CommandException {
+    final AtomicInteger executions = new AtomicInteger();
+    final Dispatcher dispatcher = Dispatcher.builder().maxRedirects(2).build();
+    dispatcher.register(literal("run").then(literal("say").executes(stack -> executions.incrementAndGet())), node -> node.add(literal("again").redirect(node).build()));
+    dispatcher.execute("run again again say", CommandContext.empty());
+    assertEquals(1, executions.get());
+    assertThrows(DispatcherException.RedirectsExceeded.class, () -> dispatcher.execute("run again again again say", CommandContext.empty()));
+    assertEquals(ParseOutcome.Failure.REDIRECTS_EXCEEDED, dispatcher.tryParse("run again again again say", CommandContext.empty()).failure());
+    // the root and "a" are parsed from frames, and "b" would need a third
+    final Dispatcher shallow = Dispatcher.builder().maxDepth(2).build();
+    shallow.register(literal("a").then(literal("b").executes(stack -> executions.incrementAndGet()).then(literal("c").executes(stack -> executions.incrementAndGet()))));
+    shallow.execute("a b", CommandContext.empty());
+    assertEquals(2, executions.get());
+    final DispatcherException.DepthExceeded exceeded = assertThrows(DispatcherException.DepthExceeded.class, () -> shallow.execute("a b c", CommandContext.empty()));
+    assertEquals("Maximum parse depth of 2 exceeded", exceeded.message());
+    assertEquals(ParseOutcome.Failure.DEPTH_EXCEEDED, shallow.tryParse("a b c", CommandContext.empty()).failure());
+  }
+
+  @Test
+  void testBatch() {
+    final Argument<Integer> number = IntArgumentType.any("number");
+    final List<String> executed = new ArrayList<>();
+    final Dispatcher dispatcher = Dispatcher.create();
+    dispatcher.register(literal("foo").then(argument(number).executes(stack -> executed.add("foo " + stack.arguments().getInt(number)))));
+    dispatcher.register(literal("bar").executes(stack -> executed.add("bar")));
+    final List<String> inputs = Arrays.asList("foo 1", "bar", "foo x", "missing", "foo 2 3", "foo 4");
+    final List<ParseOutcome> outcomes = dispatcher.parseAll(inputs, CommandContext.empty());
+    assertEquals(6, outcomes.size());
+    assertTrue(outcomes.get(0).successful());
+    assertTrue(outcomes.get(1).successful());
+    assertEquals(ParseOutcome.Failure.INVALID_ARGUMENT, outcomes.get(2).failure());
+    assertEquals(ParseOutcome.Failure.UNKNOWN_COMMAND, outcomes.get(3).failure());
+    assertEquals(ParseOutcome.Failure.UNKNOWN_ARGUMENT, outcomes.get(4).failure());
+    assertTrue(outcomes.get(5).successful());
+    assertTrue(executed.isEmpty());
+
+    final List<CommandException> exceptions = dispatcher.executeAll(inputs, CommandContext.empty());
+    assertEquals(Arrays.asList("foo 1", "bar", "foo 4"), executed);
+    assertEquals(Arrays.asList(false, false, true, true, true, false), exceptions.stream().map(exception -> exception != null).collect(Collectors.toList()));
+    assertThrows(IllegalArgumentException.class, () -> dispatcher.parseAll(inputs, Collections.singletonList(CommandContext.empty())));
+  }
+
+  @Test
+  void testBatchContinuesAfterUncheckedException() {
+    final List<String> executed = new ArrayList<>();
+    final IllegalStateException failure = new IllegalStateException("broken");
+    final Dispatcher dispatcher = Dispatcher.create();
+    dispatcher.register(literal("foo").executes(stack -> executed.add("foo")));
+    dispatcher.register(literal("bar").executes(stack -> {
+      throw failure;
+    }));
+    final List<CommandException> exceptions = dispatcher.executeAll(Arrays.asList("foo", "bar", "foo"), CommandContext.empty());
+    assertEquals(Arrays.asList("foo", "foo"), executed);
+    assertEquals(3, exceptions.size());
+    assertNull(exceptions.get(0));
+    assertSame(failure, exceptions.get(1).getCause());
+    assertNull(exceptions.get(2));
+  }
+
+  @Test
+  void testPrepare() throws Exception {
+    final Argument<Integer> number = IntArgumentType.any("number");
+    final AtomicInteger total = new AtomicInteger();
+    final Dispatcher dispatcher = Dispatcher.create();
+    dispatcher.register(literal("add").then(argument(number).executes(stack -> total.addAndGet(stack.arguments().getInt(number)))), "owner");
+    final ExecutorService parser = Executors.newFixedThreadPool(2);
+    try {
+      final List<Future<PreparedCommand>> prepared = new ArrayList<>();
+      for(int i = 1; i <= 10; i++) {
+        final String input = "add " + i;
+        prepared.add(parser.submit(() -> dispatcher.prepare(input, CommandContext.empty())));
+      }
+      for(final Future<PreparedCommand> command : prepared) {
+        command.get(5, TimeUnit.SECONDS).execute();
+      }
+    } finally {
+      parser.shutdown();
+    }
+    assertEquals(55, total.get());
+    // the executable is captured when preparing
+    final PreparedCommand command = dispatcher.prepare("add 5", CommandContext.empty());
+    assertEquals("add 5", command.input());
+    dispatcher.unregister("owner");
+    command.execute();
+    assertEquals(60, total.get());
+    assertThrows(DispatcherException.UnknownCommand.class, () -> dispatcher.prepare("add 5", CommandContext.empty()));
+  }
+
+  @Test
+  void testExecuteAsync() throws Exception {
+    final AtomicInteger executions = new AtomicInteger();
+    final CompletableFuture<Void> lookup = new CompletableFuture<>();
+    final Dispatcher dispatcher = Dispatcher.create();
+    dispatcher.register(literal("sync").executes(stack -> executions.incrementAndGet()));
+    dispatcher.register(literal("async").executesAsync(stack -> lookup.thenRun(executions::incrementAndGet)));
+    dispatcher.register(literal("fail").executes(stack -> {
+      throw new DispatcherException.UnknownCommand(StringReader.create(""));
+    }));
+    final ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      dispatcher.executeAsync("sync", CommandContext.empty(), executor).get(5, TimeUnit.SECONDS);
+      assertEquals(1, executions.get());
+
+      final CompletableFuture<Void> pending = dispatcher.executeAsync("async", CommandContext.empty(), executor);
+      assertFalse(pending.isDone());
+      lookup.complete(null);
+      pending.get(5, TimeUnit.SECONDS);
+      assertEquals(2, executions.get());
+
+      final ExecutionException failed = assertThrows(ExecutionException.class, () -> dispatcher.executeAsync("fail", CommandContext.empty(), executor).get(5, TimeUnit.SECONDS));
+      assertTrue(failed.getCause() instanceof DispatcherException.UnknownCommand);
+      // parse failures complete the future instead of being thrown
+      assertTrue(dispatcher.executeAsync("missing", CommandContext.empty(), executor).isCompletedExceptionally());
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  void testUnregister() throws CommandException {
+    final AtomicInteger executions = new AtomicInteger();
+    final Dispatcher dispatcher = Dispatcher.create();
+    dispatcher.register(literal("foo").then(literal("a").executes(stack -> executions.incrementAndGet())), "first");
+    dispatcher.register(literal("foo").then(literal("b").executes(stack -> executions.incrementAndGet())), "second");
+    dispatcher.execute("foo b", CommandContext.empty());
+    dispatcher.unregister("second");
+    assertThrows(CommandException.class, () -> dispatcher.execute("foo b", CommandContext.empty()));
+    dispatcher.execute("foo a", CommandContext.empty());
+    assertEquals(2, executions.get());
+  }
+
+  @Test
+  void testConcurrentRegistration() throws CommandException, InterruptedException {
+    final AtomicInteger executions = new AtomicInteger();
+    final Dispatcher dispatcher = Dispatcher.create();
+    dispatcher.register(literal("base").then(literal("child").executes(stack -> executions.incrementAndGet())));
+    final int commands = 500;
+    final Thread writer = new Thread(() -> {
+      for(int i = 0; i < commands; i++) {
+        dispatcher.register(literal("command" + i).executes(stack -> executions.incrementAndGet()));
+        dispatcher.register(literal("base").then(literal("child" + i)));
+      }
+    });
+    writer.start();
+    int parses = 0;
+    while(writer.isAlive()) {
+      dispatcher.execute("base child", CommandContext.empty());
+      parses++;
+    }
+    writer.join();
+    for(int i = 0; i < commands; i++) {
+      dispatcher.execute("command" + i, CommandContext.empty());
+    }
+    assertEquals(parses + commands, executions.get());
+    assertEquals(commands + 1, dispatcher.root().children().stream().filter(node -> node.name().equals("base")).findFirst().get().children().size());
+  }
 }
@@ -0,0 +1,112 @@
+/*
+ * This file is part of kata, licensed under the MIT License.
+ *
+ * Copyright (c) 2018 KyoriPowered
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.kyori.kata.node;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static com.google.common.truth.Truth.assertThat;
+import static net.kyori.kata.node.Node.literal;
+
+class ChildMapTest {
+  @Test
+  void testOrder() {
+    ChildMap map = ChildMap.EMPTY;
+    final List<ChildNode> nodes = new ArrayList<>();
+    for(int i = 0; i < 2000; i++) {
+      final ChildNode node = literal("n" + i).build();
+      nodes.add(node);
+      map = map.with(node);
+    }
+    assertThat(map).hasSize(2000);
+    assertThat(map.values()).containsExactly(nodes.toArray()).inOrder();
+    assertThat(map.get("n1234")).isSameAs(nodes.get(1234));
+    assertThat(map.get("n2000")).isNull();
+  }
+
+  @Test
+  void testReplaceKeepsPosition() {
+    final ChildNode a = literal("a").build();
+    final ChildNode b = literal("b").build();
+    final ChildNode replaced = literal("a").build();
+    final ChildMap map = ChildMap.EMPTY.with(a).with(b).with(replaced);
+    assertThat(map.values()).containsExactly(replaced, b).inOrder();
+  }
+
+  @Test
+  void testWithout() {
+    ChildMap map = ChildMap.EMPTY;
+    final List<ChildNode> nodes = new ArrayList<>();
+    for(int i = 0; i < 100; i++) {
+      final ChildNode node = literal("n" + i).build();
+      nodes.add(node);
+      map = map.with(node);
+    }
+    final ChildMap previous = map;
+    final List<String> removed = new ArrayList<>();
+    for(int i = 0; i < 100; i += 3) {
+      removed.add("n" + i);
+    }
+    map = map.without(removed);
+    assertThat(map.without(Collections.singleton("missing"))).isSameAs(map);
+    assertThat(map).hasSize(66);
+    assertThat(map.get("n3")).isNull();
+    assertThat(map.get("n4")).isSameAs(nodes.get(4));
+    // the previous map is unchanged
+    assertThat(previous).hasSize(100);
+    assertThat(previous.get("n3")).isSameAs(nodes.get(3));
+
+    // removing most children compacts the vector, keeping the order
+    final List<String> most = new ArrayList<>();
+    for(int i = 0; i < 98; i++) {
+      most.add("n" + i);
+    }
+    map = map.without(most).with(literal("n0").build());
+    assertThat(map.keySet()).containsExactly("n98", "n0").inOrder();
+  }
+
+  @Test
+  void testHashCollisions() {
+    // "Aa" and "BB" have the same hash code
+    final ChildNode aa = literal("Aa").build();
+    final ChildNode bb = literal("BB").build();
+    final ChildMap map = ChildMap.EMPTY.with(aa).with(bb);
+    assertThat(map.get("Aa")).isSameAs(aa);
+    assertThat(map.get("BB")).isSameAs(bb);
+    assertThat(map.without(Arrays.asList("Aa")).get("BB")).isSameAs(bb);
+    assertThat(map.without(Arrays.asList("Aa", "BB"))).isEmpty();
+    // "@" has a different hash code, which only differs from theirs in a later level of the trie
+    final ChildNode at = literal("@").build();
+    final ChildMap split = map.with(at);
+    assertThat(split.get("Aa")).isSameAs(aa);
+    assertThat(split.get("BB")).isSameAs(bb);
+    assertThat(split.get("@")).isSameAs(at);
+    assertThat(split.without(Arrays.asList("Aa", "BB")).get("@")).isSameAs(at);
+    assertThat(split.without(Arrays.asList("@")).get("BB")).isSameAs(bb);
+  }
+}
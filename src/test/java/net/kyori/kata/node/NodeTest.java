@@ -23,9 +23,14 @@
  */
 package net.kyori.kata.node;
 
+import net.kyori.kata.argument.type.number.IntArgumentType;
+import net.kyori.kata.argument.type.string.StringArgumentType;
+import net.kyori.string.StringReader;
 import org.junit.jupiter.api.Test;
 
 import static com.google.common.truth.Truth.assertThat;
+import static net.kyori.kata.node.Node.argument;
+import static net.kyori.kata.node.Node.flag;
 import static net.kyori.kata.node.Node.literal;
 import static net.kyori.kata.node.Node.root;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -53,6 +58,43 @@ class NodeTest {
     assertThat(root.children()).isEmpty();
   }
 
+  @Test
+  void testRemoveAll() {
+    final RootNode root = root();
+    final ExecutableNode.Executable executable = stack -> {
+    };
+    root.add(literal("foo").then(literal("a")).build(), "first");
+    root.add(literal("foo").executes(executable).then(literal("b")).build(), "second");
+    root.add(literal("bar").build(), "second");
+    assertThat(root.children()).hasSize(2);
+    final ExecutableNode foo = (ExecutableNode) root.children().iterator().next();
+    assertThat(foo.children()).hasSize(2);
+    assertThat(foo.executable()).isSameAs(executable);
+
+    root.removeAll("second");
+    assertThat(root.children()).containsExactly(foo);
+    assertThat(foo.children()).hasSize(1);
+    assertThat(foo.executable()).isNull();
+
+    // unknown owners are ignored
+    root.removeAll("second");
+    root.removeAll("first");
+    assertThat(root.children()).isEmpty();
+  }
+
+  @Test
+  void testRemoveAllPrunesOtherOwners() {
+    final RootNode root = root();
+    root.add(literal("foo").build(), "first");
+    root.add(literal("foo").then(literal("a")).build(), "second");
+    final Node foo = root.child("foo");
+    root.removeAll("first");
+    assertThat(root.children()).isEmpty();
+    // what the second owner merged into the removed node was discarded with it, so is not removed again
+    root.removeAll("second");
+    assertThat(foo.children()).hasSize(1);
+  }
+
   @Test
   void testAdd_replaceExecutable() {
     assertThrows(UnsupportedOperationException.class, () -> root()
@@ -62,4 +104,30 @@ class NodeTest {
       }))
     );
   }
+
+  @Test
+  void testRelevantChildren() {
+    final Node root = root()
+      .add(argument(IntArgumentType.any("number")))
+      .add(argument(StringArgumentType.word("word")))
+      .add(flag('f'));
+    assertThat(root.relevantChildren(StringReader.create("5"))).hasSize(2);
+    assertThat(root.relevantChildren(StringReader.create("abc"))).hasSize(1);
+    assertThat(root.relevantChildren(StringReader.create("-f"))).hasSize(3);
+    assertThat(root.relevantChildren(StringReader.create(""))).hasSize(3);
+  }
+
+  @Test
+  void testRelevantChildren_literal() {
+    final Node root = root()
+      .add(literal("foo"))
+      .add(argument(StringArgumentType.word("word")));
+    final StringReader reader = StringReader.create("foo bar");
+    assertThat(root.relevantChildren(reader)).containsExactly(root.children().iterator().next());
+    assertThat(reader.index()).isEqualTo(0);
+    assertThat(root.relevantChildren(StringReader.create("fo bar"))).hasSize(1);
+    root.remove("foo");
+    assertThat(root.relevantChildren(StringReader.create("foo"))).hasSize(1);
+    assertThat(root.relevantChildren(StringReader.create("foo")).iterator().next()).isInstanceOf(ArgumentNode.class);
+  }
 }
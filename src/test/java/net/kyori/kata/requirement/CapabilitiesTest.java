@@ -0,0 +1,64 @@
+/*
+ * This file is part of kata, licensed under the MIT License.
+ *
+ * Copyright (c) 2018 KyoriPowered
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.kyori.kata.requirement;
+
+import net.kyori.kata.context.CommandContext;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CapabilitiesTest {
+  private static final Capability A = Capability.of("test.a");
+  private static final Capability B = Capability.of("test.b");
+
+  @Test
+  void testOf() {
+    assertSame(A, Capability.of("test.a"));
+    assertTrue(Capabilities.empty().isEmpty());
+    assertSame(Capabilities.empty(), Capabilities.of());
+    assertTrue(Capabilities.of(A).contains(A));
+    assertFalse(Capabilities.of(A).contains(B));
+    assertEquals(Capabilities.of(A, B), Capabilities.of(B, A));
+  }
+
+  @Test
+  void testContainsAll() {
+    final Capabilities both = Capabilities.of(A, B);
+    assertTrue(both.containsAll(Capabilities.of(A)));
+    assertTrue(both.containsAll(Capabilities.empty()));
+    assertFalse(Capabilities.of(A).containsAll(both));
+    assertEquals(both, Capabilities.of(A).union(Capabilities.of(B)));
+  }
+
+  @Test
+  void testRequirement() {
+    final Requirement requirement = Requirement.of(A, B);
+    assertFalse(requirement.test(CommandContext.empty()));
+    assertFalse(requirement.test(CommandContext.builder().capabilities(Capabilities.of(A)).build()));
+    assertTrue(requirement.test(CommandContext.builder().capabilities(Capabilities.of(A, B)).build()));
+  }
+}
@@ -0,0 +1,49 @@
+/*
+ * This file is part of kata, licensed under the MIT License.
+ *
+ * Copyright (c) 2018 KyoriPowered
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.kyori.kata.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LiteralTableTest {
+  private static final LiteralTable TABLE = LiteralTable.of(new String[]{"foo", "bar", "baz", "foo"}, new int[]{0, 1, 2, 3});
+
+  @Test
+  void testGet() {
+    assertEquals(3, TABLE.size());
+    assertEquals(0, TABLE.get("foo"));
+    assertEquals(1, TABLE.get("bar"));
+    assertEquals(2, TABLE.get("baz"));
+    assertEquals(LiteralTable.ABSENT, TABLE.get("ba"));
+    assertEquals(LiteralTable.ABSENT, LiteralTable.empty().get("foo"));
+  }
+
+  @Test
+  void testGetRange() {
+    assertEquals(1, TABLE.get("foo bar baz", 4, 7));
+    assertEquals(2, TABLE.get("foo bar baz", 8, 11));
+    assertEquals(LiteralTable.ABSENT, TABLE.get("foo bar baz", 0, 7));
+  }
+}
@@ -0,0 +1,97 @@
+/*
+ * This file is part of kata, licensed under the MIT License.
+ *
+ * Copyright (c) 2018 KyoriPowered
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.kyori.kata.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokensTest {
+  @Test
+  void testOf() {
+    final Tokens tokens = Tokens.of("foo bar  baz", ' ');
+    assertEquals(4, tokens.count());
+    assertEquals(0, tokens.start(0));
+    assertEquals(3, tokens.end(0));
+    assertEquals(4, tokens.start(1));
+    assertEquals(7, tokens.end(1));
+    assertEquals(8, tokens.start(2));
+    assertEquals(8, tokens.end(2));
+    assertEquals(9, tokens.start(3));
+    assertEquals(12, tokens.end(3));
+  }
+
+  @Test
+  void testOf_reused() {
+    final Tokens tokens = Tokens.of("a b c d e f g h i j", ' ', Tokens.of("foo bar", ' '));
+    assertEquals(10, tokens.count());
+    assertEquals(18, tokens.start(9));
+    final Tokens reused = Tokens.of("foo", ' ', tokens);
+    assertEquals(1, reused.count());
+    assertEquals(3, reused.end(0));
+    assertEquals(Tokens.NONE, reused.at(4));
+  }
+
+  @Test
+  void testOf_empty() {
+    final Tokens tokens = Tokens.of("", ' ');
+    assertEquals(1, tokens.count());
+    assertEquals(0, tokens.end(0));
+  }
+
+  @Test
+  void testOf_quoted() {
+    final Tokens tokens = Tokens.of("foo \"a \\\" b\" bar \"baz", ' ');
+    assertEquals(4, tokens.count());
+    assertFalse(tokens.quoted(0));
+    assertTrue(tokens.quoted(1));
+    assertEquals(4, tokens.start(1));
+    assertEquals(12, tokens.end(1));
+    assertEquals(13, tokens.start(2));
+    assertEquals(21, tokens.end(3));
+  }
+
+  @Test
+  void testAt() {
+    final Tokens tokens = Tokens.of("foo bar baz", ' ');
+    assertEquals(0, tokens.at(0));
+    assertEquals(1, tokens.at(4));
+    assertEquals(2, tokens.at(8));
+    assertEquals(Tokens.NONE, tokens.at(5));
+    assertEquals(Tokens.NONE, tokens.at(20));
+  }
+
+  @Test
+  void testAt_outOfOrder() {
+    final Tokens tokens = Tokens.of("foo \"a b\" bar baz", ' ');
+    assertEquals(Tokens.NONE, tokens.at(6));
+    assertEquals(2, tokens.at(10));
+    assertEquals(0, tokens.at(0));
+    assertEquals(9, tokens.end(1));
+    assertEquals(4, tokens.count());
+    assertEquals(3, tokens.at(14));
+  }
+}